@@ -0,0 +1,58 @@
+package com.pumpaj.evropo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An LLM analysis from the JSON text the Python worker returns to stored protest and day data,
+ * over every line of examples/dummy_gemini_output.jsonl. Parsing alone is measured as well, so
+ * the two can be told apart.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalysisResponseBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<String> responses;
+    private AnalyserService analyserService;
+    private PrintStream stdout;
+
+    @Setup
+    public void setUp() throws IOException {
+        responses = BenchmarkFixtures.lines("examples/dummy_gemini_output.jsonl");
+        analyserService = BenchmarkFixtures.analyserService(BenchmarkFixtures.gazetteer());
+        stdout = BenchmarkFixtures.silenceStdout();
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) throws IOException {
+        for (String response : responses) {
+            blackhole.consume(objectMapper.readTree(response));
+        }
+    }
+
+    @Benchmark
+    public void parseAndProcess() throws IOException {
+        for (String response : responses) {
+            JsonNode analysis = objectMapper.readTree(response);
+            analyserService.processJsonResponse((ObjectNode) analysis, "benchmark");
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.pumpaj.evropo.service;
+
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonObjectId;
+import org.bson.Document;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.support.PersistenceExceptionTranslator;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoExceptionTranslator;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The services under benchmark wired by hand, with in-memory stand-ins where they would reach MongoDB.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    static Gazetteer gazetteer() throws IOException {
+        Gazetteer gazetteer = new Gazetteer();
+        inject(gazetteer, "location", new ClassPathResource("gazetteer/places.tsv"));
+        gazetteer.load();
+        return gazetteer;
+    }
+
+    static ProtestKeyResolver protestKeyResolver(Gazetteer gazetteer) {
+        ProtestKeyResolver resolver = new ProtestKeyResolver();
+        inject(resolver, "gazetteer", gazetteer);
+        return resolver;
+    }
+
+    /**
+     * Unbuffered, so every call does all of its work before it returns.
+     */
+    static DataProcessingService dataProcessingService(Gazetteer gazetteer) {
+        return new DataProcessingService(new InMemoryMongoTemplate(), null, new InMemoryDayMetricsWriter(),
+                new DataVersions(), protestKeyResolver(gazetteer), false);
+    }
+
+    static AnalyserService analyserService(Gazetteer gazetteer) {
+        AnalyserService analyserService = new AnalyserService();
+        inject(analyserService, "gazetteer", gazetteer);
+        inject(analyserService, "dataProcessingService", dataProcessingService(gazetteer));
+        return analyserService;
+    }
+
+    /**
+     * Non-blank lines of a classpath resource that aren't # comments, the way keyword lists are read.
+     */
+    static List<String> lines(String resource) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ClassPathResource(resource).getInputStream(), StandardCharsets.UTF_8))) {
+            return reader.lines()
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .collect(Collectors.toUnmodifiableList());
+        }
+    }
+
+    /**
+     * The pipeline logs every protest and day, which would flood the JMH console. The output is
+     * still written, only into a stream that drops it. Returns the stream to restore afterwards.
+     */
+    static PrintStream silenceStdout() {
+        PrintStream stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        return stdout;
+    }
+
+    private static void inject(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        if (field == null) {
+            throw new IllegalStateException(target.getClass().getSimpleName() + " has no field " + name);
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+
+    /**
+     * Keeps upserts in a map keyed by their query. The update is rendered into its pipeline like the
+     * driver would, but never evaluated.
+     */
+    static final class InMemoryMongoTemplate extends MongoTemplate {
+        private final Map<Document, List<Document>> upserts = new HashMap<>();
+
+        InMemoryMongoTemplate() {
+            super(new UnconnectedDatabaseFactory());
+        }
+
+        @Override
+        public UpdateResult upsert(Query query, UpdateDefinition update, Class<?> entityClass) {
+            List<Document> pipeline = update instanceof AggregationUpdate aggregation
+                    ? aggregation.toPipeline(Aggregation.DEFAULT_CONTEXT)
+                    : List.of(update.getUpdateObject());
+            boolean existed = upserts.put(query.getQueryObject(), pipeline) != null;
+            return existed
+                    ? UpdateResult.acknowledged(1, 1L, null)
+                    : UpdateResult.acknowledged(0, 0L, new BsonObjectId());
+        }
+    }
+
+    /**
+     * Sums day counts per date, source and field instead of writing measurements and rollups.
+     */
+    static final class InMemoryDayMetricsWriter extends DayMetricsWriter {
+        private final Map<String, Long> sums = new HashMap<>();
+
+        @Override
+        public void write(Instant date, String source, Map<String, ? extends Number> counts) {
+            counts.forEach((field, value) -> sums.merge(date + "/" + source + "/" + field, value.longValue(), Long::sum));
+        }
+    }
+
+    // Lets MongoTemplate be built without a client, anything that would reach a database fails
+    private static final class UnconnectedDatabaseFactory implements MongoDatabaseFactory {
+        private final PersistenceExceptionTranslator exceptionTranslator = new MongoExceptionTranslator();
+
+        @Override
+        public MongoDatabase getMongoDatabase() {
+            throw new UnsupportedOperationException("The benchmarks don't connect to MongoDB");
+        }
+
+        @Override
+        public MongoDatabase getMongoDatabase(String dbName) {
+            throw new UnsupportedOperationException("The benchmarks don't connect to MongoDB");
+        }
+
+        @Override
+        public PersistenceExceptionTranslator getExceptionTranslator() {
+            return exceptionTranslator;
+        }
+
+        @Override
+        public ClientSession getSession(ClientSessionOptions options) {
+            throw new UnsupportedOperationException("The benchmarks don't connect to MongoDB");
+        }
+
+        @Override
+        public MongoDatabaseFactory withSession(ClientSession session) {
+            throw new UnsupportedOperationException("The benchmarks don't connect to MongoDB");
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.pumpaj.evropo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Java side of storing one protest and one day. MongoDB is replaced by in-memory stand-ins, so
+ * this is the cost of keying, converting and rendering the updates, not of the round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataProcessingBenchmark {
+
+    private static final List<String> PROTESTS = List.of(
+            "{\"organizer\": \"s&o\", \"location\": \"Novi Sad\", \"date\": \"2025-03-15\", "
+                    + "\"count\": {\"government\": null, \"independent\": 20000}, \"x\": 45.25, \"y\": 19.84}",
+            "{\"organizer\": \"Studenti i građani\", \"location\": \"u Beogradu\", \"date\": \"15.3.2025.\", "
+                    + "\"count\": {\"government\": 35000, \"independent\": 300000}}",
+            "{\"organizer\": \"gov\", \"location\": \"Kragujevcu\", \"date\": \"2025-02-15 00:00:00\", "
+                    + "\"count\": {\"government\": 5000}}",
+            "{\"organizer\": \"s&o\", \"location\": \"Atlantida\", \"date\": \"2025-04-01\"}");
+
+    private static final String DAY = "{\"date\": \"15.3.2025.\", \"state_driven_messaging\": 2, "
+            + "\"pro_student_messaging\": 7, \"student_mentions\": {\"good_count\": 3, \"bad_count\": 1}, "
+            + "\"state_mentions\": {\"good_count\": 0, \"bad_count\": 4}, \"propaganda_count\": 1, \"pro_protest_count\": 2}";
+
+    private final List<ObjectNode> protests = new ArrayList<>();
+    private ObjectNode day;
+    private DataProcessingService dataProcessingService;
+    private PrintStream stdout;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (String protest : PROTESTS) {
+            protests.add((ObjectNode) objectMapper.readTree(protest));
+        }
+        day = (ObjectNode) objectMapper.readTree(DAY);
+        dataProcessingService = BenchmarkFixtures.dataProcessingService(BenchmarkFixtures.gazetteer());
+        stdout = BenchmarkFixtures.silenceStdout();
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public void processProtestJson() {
+        dataProcessingService.processProtestJson(protests.get(next++ % protests.size()));
+    }
+
+    @Benchmark
+    public void processDayJson() {
+        dataProcessingService.processDayJson(day, "021.rs");
+    }
+}
@@ -0,0 +1,28 @@
+package com.pumpaj.evropo.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DataProcessingService#parseDate}, once standardizeDate, for every format the analysis
+ * writes dates in and for a date it can't read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateParsingBenchmark {
+
+    @Param({"2025-03-15", "2025-03-15 00:00:00", "15.3.2025.", "sredina marta"})
+    private String date;
+
+    @Benchmark
+    public Optional<Instant> parseDate() {
+        return DataProcessingService.parseDate(date);
+    }
+}
@@ -0,0 +1,42 @@
+package com.pumpaj.evropo.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The location lookups of addCoordinatesToProtest and of the protest key: an exact name, a case
+ * form, a name inside a longer location, a declined form found by edit distance and a miss.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GazetteerBenchmark {
+
+    @Param({"Beograd", "u Novom Sadu", "ETF Beograd", "Kragujevcu", "Atlantida"})
+    private String location;
+
+    private Gazetteer gazetteer;
+    private ProtestKeyResolver protestKeyResolver;
+
+    @Setup
+    public void setUp() throws IOException {
+        gazetteer = BenchmarkFixtures.gazetteer();
+        protestKeyResolver = BenchmarkFixtures.protestKeyResolver(gazetteer);
+    }
+
+    @Benchmark
+    public Optional<Gazetteer.Place> find() {
+        return gazetteer.find(location);
+    }
+
+    @Benchmark
+    public Optional<ProtestKeyResolver.ProtestKey> resolveProtestKey() {
+        return protestKeyResolver.resolve("Studenti i građani", location, "15.3.2025.");
+    }
+}
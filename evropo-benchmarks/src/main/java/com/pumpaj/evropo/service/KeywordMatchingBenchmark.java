@@ -0,0 +1,69 @@
+package com.pumpaj.evropo.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Keyword matching of listing titles. The regex is the one findUnvisitedWithKeywords used to build
+ * for every poll and hand to MongoDB, run here with java.util.regex. {@link KeywordMatcher} replaced it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeywordMatchingBenchmark {
+
+    private static final List<String> TITLES = List.of(
+            "Studenti blokirali raskrsnicu kod Železničke stanice u Novom Sadu",
+            "Veliki protest u Beogradu, hiljade građana na ulicama",
+            "Vremenska prognoza: sunčano i toplo tokom vikenda",
+            "Вучић: Блокаде факултета морају да престану",
+            "Cene goriva ostaju nepromenjene i naredne nedelje",
+            "Zbor građana u Kragujevcu podržao zahteve studenata",
+            "Partizan pobedio Zvezdu u derbiju",
+            "Profesori stupili u štrajk, nastava obustavljena");
+
+    @Param({"021", "informer"})
+    private String source;
+
+    private List<String> keywords;
+    private Pattern regex;
+    private KeywordMatcher keywordMatcher;
+
+    @Setup
+    public void setUp() throws IOException {
+        keywords = BenchmarkFixtures.lines("keywords/" + source + ".txt");
+        regex = buildRegex();
+        keywordMatcher = new KeywordMatcher(keywords);
+    }
+
+    @Benchmark
+    public Pattern buildRegex() {
+        String pattern = keywords.stream()
+                .map(Pattern::quote)
+                .collect(Collectors.joining("|", "(?i)\\b(", ")\\b"));
+        return Pattern.compile(pattern);
+    }
+
+    @Benchmark
+    public void matchRegex(Blackhole blackhole) {
+        for (String title : TITLES) {
+            blackhole.consume(regex.matcher(title).find());
+        }
+    }
+
+    @Benchmark
+    public void matchKeywordMatcher(Blackhole blackhole) {
+        for (String title : TITLES) {
+            blackhole.consume(keywordMatcher.findMatches(title));
+        }
+    }
+}
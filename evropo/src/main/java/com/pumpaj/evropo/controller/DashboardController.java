@@ -0,0 +1,136 @@
+package com.pumpaj.evropo.controller;
+
+import com.pumpaj.evropo.model.DashboardPage;
+import com.pumpaj.evropo.model.Day;
+import com.pumpaj.evropo.model.DayRollup;
+import com.pumpaj.evropo.model.Protest;
+import com.pumpaj.evropo.service.DashboardService;
+import com.pumpaj.evropo.service.DataVersions;
+import com.pumpaj.evropo.service.Gazetteer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Read endpoints for the Grafana dashboards. Answers carry a strong ETag of the data version,
+ * so a refresh of unchanged data is a 304 that never reaches MongoDB.
+ */
+@RestController
+@RequestMapping("/api/dashboard")
+@CrossOrigin(origins = "*") // Allow CORS for development
+public class DashboardController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Autowired
+    private DataVersions dataVersions;
+
+    @Autowired
+    private Gazetteer gazetteer;
+
+    @Value("${dashboard.cache.max-age-seconds:10}")
+    private long maxAgeSeconds;
+
+    // e.g. /api/dashboard/protests?from=2025-03-01T00:00:00Z&organizer=s%26o&fields=location,count
+    @GetMapping("/protests")
+    public ResponseEntity<DashboardPage<Protest>> getProtests(@RequestParam(value = "from", required = false) Instant from,
+                                                              @RequestParam(value = "to", required = false) Instant to,
+                                                              @RequestParam(value = "organizer", required = false) String organizer,
+                                                              @RequestParam(value = "location", required = false) String location,
+                                                              @RequestParam(value = "fields", defaultValue = "") List<String> fields,
+                                                              @RequestParam(value = "after", required = false) String after,
+                                                              @RequestParam(value = "limit", defaultValue = "100") int limit,
+                                                              WebRequest request) {
+        return cached(Protest.class, request, () -> dashboardService.findProtests(
+                from, to, organizer, location, fields, after, clamp(limit)));
+    }
+
+    // Map viewport, e.g. /api/dashboard/protests/within?minLng=19.7&minLat=45.2&maxLng=19.95&maxLat=45.3
+    @GetMapping("/protests/within")
+    public ResponseEntity<DashboardPage<Protest>> getProtestsWithin(@RequestParam("minLng") double minLng,
+                                                                    @RequestParam("minLat") double minLat,
+                                                                    @RequestParam("maxLng") double maxLng,
+                                                                    @RequestParam("maxLat") double maxLat,
+                                                                    @RequestParam(value = "from", required = false) Instant from,
+                                                                    @RequestParam(value = "to", required = false) Instant to,
+                                                                    @RequestParam(value = "organizer", required = false) String organizer,
+                                                                    @RequestParam(value = "fields", defaultValue = "") List<String> fields,
+                                                                    @RequestParam(value = "after", required = false) String after,
+                                                                    @RequestParam(value = "limit", defaultValue = "100") int limit,
+                                                                    WebRequest request) {
+        return cached(Protest.class, request, () -> dashboardService.findProtestsWithin(
+                minLng, minLat, maxLng, maxLat, from, to, organizer, fields, after, clamp(limit)));
+    }
+
+    // Around a city or a point, e.g. /api/dashboard/protests/near?city=Novi Sad&radiusKm=30
+    @GetMapping("/protests/near")
+    public ResponseEntity<DashboardPage<Protest>> getProtestsNear(@RequestParam(value = "city", required = false) String city,
+                                                                  @RequestParam(value = "lng", required = false) Double lng,
+                                                                  @RequestParam(value = "lat", required = false) Double lat,
+                                                                  @RequestParam(value = "radiusKm", defaultValue = "25") double radiusKm,
+                                                                  @RequestParam(value = "from", required = false) Instant from,
+                                                                  @RequestParam(value = "to", required = false) Instant to,
+                                                                  @RequestParam(value = "organizer", required = false) String organizer,
+                                                                  @RequestParam(value = "fields", defaultValue = "") List<String> fields,
+                                                                  @RequestParam(value = "limit", defaultValue = "100") int limit,
+                                                                  WebRequest request) {
+        GeoJsonPoint center;
+        if (city != null) {
+            center = gazetteer.find(city)
+                    .map(place -> new GeoJsonPoint(place.getLongitude(), place.getLatitude()))
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown city: " + city));
+        } else if (lng != null && lat != null) {
+            center = new GeoJsonPoint(lng, lat);
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Pass a city or lng and lat");
+        }
+        return cached(Protest.class, request, () -> dashboardService.findProtestsNear(
+                center, radiusKm, from, to, organizer, fields, clamp(limit)));
+    }
+
+    // e.g. /api/dashboard/days?period=month&source=021.rs&fields=studentMentions,stateMentions
+    @GetMapping("/days")
+    public ResponseEntity<DashboardPage<DayRollup>> getDays(@RequestParam(value = "from", required = false) Instant from,
+                                                            @RequestParam(value = "to", required = false) Instant to,
+                                                            @RequestParam(value = "source", required = false) String source,
+                                                            @RequestParam(value = "period", defaultValue = "day") String period,
+                                                            @RequestParam(value = "fields", defaultValue = "") List<String> fields,
+                                                            @RequestParam(value = "after", required = false) String after,
+                                                            @RequestParam(value = "limit", defaultValue = "100") int limit,
+                                                            WebRequest request) {
+        return cached(Day.class, request, () -> dashboardService.findDays(
+                from, to, source, period, fields, after, clamp(limit)));
+    }
+
+    private <T> ResponseEntity<T> cached(Class<?> entity, WebRequest request, Supplier<T> query) {
+        CacheControl cacheControl = CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic();
+        String etag = dataVersions.etag(entity);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+
+        try {
+            return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(query.get());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
@@ -0,0 +1,32 @@
+package com.pumpaj.evropo.controller;
+
+import com.pumpaj.evropo.model.PipelineJob;
+import com.pumpaj.evropo.service.JobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/jobs")
+@CrossOrigin(origins = "*") // Allow CORS for development
+public class JobController {
+
+    @Autowired
+    private JobService jobService;
+
+    @GetMapping
+    public ResponseEntity<List<PipelineJob>> getJobs() {
+        return ResponseEntity.ok(jobService.getJobs());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<PipelineJob> getJob(@PathVariable String id) {
+        return jobService.getJob(id)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown or expired job: " + id));
+    }
+}
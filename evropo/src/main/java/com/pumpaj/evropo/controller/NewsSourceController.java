@@ -0,0 +1,62 @@
+package com.pumpaj.evropo.controller;
+
+import com.pumpaj.evropo.model.MarkVisitedResult;
+import com.pumpaj.evropo.model.PipelineJob;
+import com.pumpaj.evropo.service.JobService;
+import com.pumpaj.evropo.service.NewsPipelineService;
+import com.pumpaj.evropo.service.NewsSource;
+import com.pumpaj.evropo.service.NewsSourceRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Endpoints of every registered news source, e.g. /api/021/viableLinks or /api/informer/viableLinks.
+ */
+@RestController
+@RequestMapping("/api/{sourceId}")
+@CrossOrigin(origins = "*") // Allow CORS for development
+public class NewsSourceController {
+
+    @Autowired
+    private NewsSourceRegistry sourceRegistry;
+
+    @Autowired
+    private NewsPipelineService pipelineService;
+
+    @Autowired
+    private JobService jobService;
+
+    /**
+     * Starts a pipeline run of the source, or joins the one already in flight, and returns
+     * 202 with the job. Progress and the viable links are available at /api/jobs/{id}.
+     * POST only, a crawler or prefetched link must not be able to start a scrape.
+     */
+    @PostMapping("/viableLinks")
+    public ResponseEntity<PipelineJob> getViableLinks(@PathVariable String sourceId) {
+        PipelineJob job = jobService.trigger(source(sourceId), "api");
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/jobs/" + job.getId()))
+                .body(job);
+    }
+
+    @PostMapping("/markVisited/{id}")
+    public ResponseEntity<MarkVisitedResult> markAsVisited(@PathVariable String sourceId, @PathVariable String id) {
+        return ResponseEntity.ok(pipelineService.markAsVisited(source(sourceId), id));
+    }
+
+    @PostMapping("/markMultipleVisited")
+    public ResponseEntity<MarkVisitedResult> markMultipleAsVisited(@PathVariable String sourceId, @RequestBody List<String> ids) {
+        return ResponseEntity.ok(pipelineService.markMultipleAsVisited(source(sourceId), ids));
+    }
+
+    private NewsSource source(String sourceId) {
+        return sourceRegistry.getSource(sourceId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown news source: " + sourceId));
+    }
+}
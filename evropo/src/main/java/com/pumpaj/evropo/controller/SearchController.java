@@ -0,0 +1,30 @@
+package com.pumpaj.evropo.controller;
+
+import com.pumpaj.evropo.model.SearchHit;
+import com.pumpaj.evropo.service.ArticleSearchIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/search")
+@CrossOrigin(origins = "*") // Allow CORS for development
+public class SearchController {
+
+    private static final int MAX_LIMIT = 200;
+
+    @Autowired
+    private ArticleSearchIndex searchIndex;
+
+    // Ranked full-text search, e.g. /api/search?q=šetnja studenata&source=021.rs
+    @GetMapping
+    public ResponseEntity<List<SearchHit>> search(@RequestParam("q") String query,
+                                                  @RequestParam(value = "source", required = false) String source,
+                                                  @RequestParam(value = "limit", defaultValue = "20") int limit) throws IOException {
+        List<SearchHit> hits = searchIndex.search(query, source, Math.max(1, Math.min(limit, MAX_LIMIT)));
+        return ResponseEntity.ok(hits);
+    }
+}
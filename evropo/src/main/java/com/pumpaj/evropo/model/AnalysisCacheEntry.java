@@ -0,0 +1,90 @@
+package com.pumpaj.evropo.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * A stored LLM analysis of one article text, keyed by the hash of the normalized text and the
+ * prompt version it was made with. The TTL and last-hit indexes are created by AnalysisCache,
+ * since their settings come from the application properties.
+ */
+@Document(collection = "analysis_cache")
+public class AnalysisCacheEntry {
+    // contentHash + ":" + promptVersion
+    @Id
+    private String id;
+
+    private String contentHash;
+
+    private String promptVersion;
+
+    // The analysis_result JSON exactly as the analyzer returned it
+    private String resultJson;
+
+    private Date createdAt;
+
+    private Date lastHitAt;
+
+    public AnalysisCacheEntry() {
+    }
+
+    public AnalysisCacheEntry(String contentHash, String promptVersion, String resultJson) {
+        this.id = contentHash + ":" + promptVersion;
+        this.contentHash = contentHash;
+        this.promptVersion = promptVersion;
+        this.resultJson = resultJson;
+        this.createdAt = new Date();
+        this.lastHitAt = this.createdAt;
+    }
+
+    // Getters and setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getPromptVersion() {
+        return promptVersion;
+    }
+
+    public void setPromptVersion(String promptVersion) {
+        this.promptVersion = promptVersion;
+    }
+
+    public String getResultJson() {
+        return resultJson;
+    }
+
+    public void setResultJson(String resultJson) {
+        this.resultJson = resultJson;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Date getLastHitAt() {
+        return lastHitAt;
+    }
+
+    public void setLastHitAt(Date lastHitAt) {
+        this.lastHitAt = lastHitAt;
+    }
+}
@@ -0,0 +1,78 @@
+package com.pumpaj.evropo.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * SimHash fingerprint of an analysed article's text, the persistent copy of the
+ * in-memory duplicate index. Duplicates point to the article they were first seen as.
+ */
+@Document(collection = "article_fingerprints")
+public class ArticleFingerprint {
+    // Article URL
+    @Id
+    private String id;
+
+    private String source;
+
+    private long fingerprint;
+
+    // Same as the id for canonical articles
+    private String canonicalUrl;
+
+    private Date createdAt;
+
+    public ArticleFingerprint() {
+    }
+
+    public ArticleFingerprint(String url, String source, long fingerprint, String canonicalUrl) {
+        this.id = url;
+        this.source = source;
+        this.fingerprint = fingerprint;
+        this.canonicalUrl = canonicalUrl;
+        this.createdAt = new Date();
+    }
+
+    // Getters and setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(long fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public String getCanonicalUrl() {
+        return canonicalUrl;
+    }
+
+    public void setCanonicalUrl(String canonicalUrl) {
+        this.canonicalUrl = canonicalUrl;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,38 @@
+package com.pumpaj.evropo.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of a dashboard query. Pass nextCursor as "after" to get the following page,
+ * it is null on the last one.
+ */
+public class DashboardPage<T> {
+    private List<T> items = new ArrayList<>();
+    private String nextCursor;
+
+    public DashboardPage() {
+    }
+
+    public DashboardPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and setters
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
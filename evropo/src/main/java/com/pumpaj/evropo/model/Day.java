@@ -2,15 +2,26 @@ package com.pumpaj.evropo.model;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.TimeSeries;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
 
+import java.time.Instant;
+
+/**
+ * Counts added to one day by one source, a measurement in the days time-series collection.
+ * A day has many of these, its totals are the sum over all of them. Queries go through the
+ * (source, date) index, summed weeks and months are kept in {@link DayRollup} collections.
+ */
 @Document(collection = "days")
+@TimeSeries(timeField = "date", metaField = "source", granularity = Granularity.HOURS)
 public class Day {
     @Id
     private String id;
 
-    @Indexed(unique = true)
-    private String date;
+    // Midnight UTC of the news issue date
+    private Instant date;
+    // Source tag, missing on counts migrated from before sources were recorded
+    private String source;
     private Integer stateDrivenMessaging;
     private Integer proStudentMessaging;
     private StudentMentions studentMentions;
@@ -71,14 +82,22 @@ public class Day {
         this.id = id;
     }
 
-    public String getDate() {
+    public Instant getDate() {
         return date;
     }
 
-    public void setDate(String date) {
+    public void setDate(Instant date) {
         this.date = date;
     }
 
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
     public Integer getStateDrivenMessaging() {
         return stateDrivenMessaging;
     }
@@ -0,0 +1,100 @@
+package com.pumpaj.evropo.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.data.annotation.Id;
+
+import java.time.Instant;
+
+/**
+ * Day counts of one source summed over a day, a week or a month. Weeks and months are stored in
+ * days_weekly and days_monthly with one document per (source, start), days are summed from the
+ * measurements when read. Counts a dashboard query projected away are left out of the JSON.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DayRollup {
+    @Id
+    private String id;
+
+    // Midnight UTC of the day, the Monday or the first of the month
+    private Instant start;
+    private String source;
+    private Integer stateDrivenMessaging;
+    private Integer proStudentMessaging;
+    private Day.StudentMentions studentMentions;
+    private Day.StateMentions stateMentions;
+    private Integer propagandaCount;
+    private Integer proProtestCount;
+
+    // Getters and setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Instant getStart() {
+        return start;
+    }
+
+    public void setStart(Instant start) {
+        this.start = start;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public Integer getStateDrivenMessaging() {
+        return stateDrivenMessaging;
+    }
+
+    public void setStateDrivenMessaging(Integer stateDrivenMessaging) {
+        this.stateDrivenMessaging = stateDrivenMessaging;
+    }
+
+    public Integer getProStudentMessaging() {
+        return proStudentMessaging;
+    }
+
+    public void setProStudentMessaging(Integer proStudentMessaging) {
+        this.proStudentMessaging = proStudentMessaging;
+    }
+
+    public Day.StudentMentions getStudentMentions() {
+        return studentMentions;
+    }
+
+    public void setStudentMentions(Day.StudentMentions studentMentions) {
+        this.studentMentions = studentMentions;
+    }
+
+    public Day.StateMentions getStateMentions() {
+        return stateMentions;
+    }
+
+    public void setStateMentions(Day.StateMentions stateMentions) {
+        this.stateMentions = stateMentions;
+    }
+
+    public Integer getPropagandaCount() {
+        return propagandaCount;
+    }
+
+    public void setPropagandaCount(Integer propagandaCount) {
+        this.propagandaCount = propagandaCount;
+    }
+
+    public Integer getProProtestCount() {
+        return proProtestCount;
+    }
+
+    public void setProProtestCount(Integer proProtestCount) {
+        this.proProtestCount = proProtestCount;
+    }
+}
@@ -0,0 +1,35 @@
+package com.pumpaj.evropo.model;
+
+/**
+ * Outcome of a "mark visited" update: how many articles matched the request
+ * and how many of them were not visited before and actually changed.
+ */
+public class MarkVisitedResult {
+    private long matched;
+    private long modified;
+
+    public MarkVisitedResult() {
+    }
+
+    public MarkVisitedResult(long matched, long modified) {
+        this.matched = matched;
+        this.modified = modified;
+    }
+
+    // Getters and setters
+    public long getMatched() {
+        return matched;
+    }
+
+    public void setMatched(long matched) {
+        this.matched = matched;
+    }
+
+    public long getModified() {
+        return modified;
+    }
+
+    public void setModified(long modified) {
+        this.modified = modified;
+    }
+}
@@ -1,110 +1,157 @@
-package com.pumpaj.evropo.model;
-
-import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.index.Indexed;
-import org.springframework.data.mongodb.core.index.CompoundIndex;
-import java.time.LocalDateTime;
-
-@Document(collection = "news_articles_021")
-@CompoundIndex(def = "{'url': 1, 'title': 1}", unique = true)
-public class Model021 {
-    @Id
-    private String id;
-
-    @Indexed(unique = true)
-    private String url;
-
-    private String title;
-
-    private boolean visited = false;
-
-    private LocalDateTime createdAt;
-
-    private LocalDateTime lastUpdated;
-
-    private String sourceWebsite = "021.rs";
-
-    // Constructors
-    public Model021() {
-        this.createdAt = LocalDateTime.now();
-        this.lastUpdated = LocalDateTime.now();
-    }
-
-    public Model021(String url, String title) {
-        this();
-        this.url = url;
-        this.title = title;
-    }
-
-    // Getters and Setters
-    public String getId() {
-        return id;
-    }
-
-    public void setId(String id) {
-        this.id = id;
-    }
-
-    public String getUrl() {
-        return url;
-    }
-
-    public void setUrl(String url) {
-        this.url = url;
-    }
-
-    public String getTitle() {
-        return title;
-    }
-
-    public void setTitle(String title) {
-        this.title = title;
-    }
-
-    public boolean isVisited() {
-        return visited;
-    }
-
-    public void setVisited(boolean visited) {
-        this.visited = visited;
-        this.lastUpdated = LocalDateTime.now();
-    }
-
-    public LocalDateTime getCreatedAt() {
-        return createdAt;
-    }
-
-    public void setCreatedAt(LocalDateTime createdAt) {
-        this.createdAt = createdAt;
-    }
-
-    public LocalDateTime getLastUpdated() {
-        return lastUpdated;
-    }
-
-    public void setLastUpdated(LocalDateTime lastUpdated) {
-        this.lastUpdated = lastUpdated;
-    }
-
-    public String getSourceWebsite() {
-        return sourceWebsite;
-    }
-
-    public void setSourceWebsite(String sourceWebsite) {
-        this.sourceWebsite = sourceWebsite;
-    }
-
-    @Override
-    public String toString() {
-        return "Model021{" +
-                "id='" + id + '\'' +
-                ", url='" + url + '\'' +
-                ", title='" + title + '\'' +
-                ", visited=" + visited +
-                ", createdAt=" + createdAt +
-                ", lastUpdated=" + lastUpdated +
-                ", sourceWebsite='" + sourceWebsite + '\'' +
-                '}';
-    }
+package com.pumpaj.evropo.model;
+
+import org.springframework.data.annotation.Id;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A scraped article of any news source.
+ * Every source stores its articles in its own collection (see NewsSource#getCollectionName),
+ * so this class has no @Document mapping and its indexes are created per collection by the pipeline.
+ */
+public class NewsArticle {
+    @Id
+    private String id;
+
+    private String url;
+
+    private String title;
+
+    private boolean visited = false;
+
+    // Keywords found in the title when it was ingested, relevant if there was at least one
+    private List<String> matchedKeywords;
+
+    private boolean relevant = false;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime lastUpdated;
+
+    private String sourceWebsite;
+
+    // URL of the article this one near-duplicates, it is not analysed on its own then
+    private String duplicateOf;
+
+    // Failed analyses so far, the article is given up on after analysis.max-attempts
+    private int analysisAttempts;
+
+    // Constructors
+    public NewsArticle() {
+        this.createdAt = LocalDateTime.now();
+        this.lastUpdated = LocalDateTime.now();
+    }
+
+    public NewsArticle(String url, String title) {
+        this();
+        this.url = url;
+        this.title = title;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public boolean isVisited() {
+        return visited;
+    }
+
+    public void setVisited(boolean visited) {
+        this.visited = visited;
+        this.lastUpdated = LocalDateTime.now();
+    }
+
+    public List<String> getMatchedKeywords() {
+        return matchedKeywords;
+    }
+
+    public void setMatchedKeywords(List<String> matchedKeywords) {
+        this.matchedKeywords = matchedKeywords;
+    }
+
+    public boolean isRelevant() {
+        return relevant;
+    }
+
+    public void setRelevant(boolean relevant) {
+        this.relevant = relevant;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getLastUpdated() {
+        return lastUpdated;
+    }
+
+    public void setLastUpdated(LocalDateTime lastUpdated) {
+        this.lastUpdated = lastUpdated;
+    }
+
+    public String getSourceWebsite() {
+        return sourceWebsite;
+    }
+
+    public void setSourceWebsite(String sourceWebsite) {
+        this.sourceWebsite = sourceWebsite;
+    }
+
+    public String getDuplicateOf() {
+        return duplicateOf;
+    }
+
+    public void setDuplicateOf(String duplicateOf) {
+        this.duplicateOf = duplicateOf;
+    }
+
+    public int getAnalysisAttempts() {
+        return analysisAttempts;
+    }
+
+    public void setAnalysisAttempts(int analysisAttempts) {
+        this.analysisAttempts = analysisAttempts;
+    }
+
+    @Override
+    public String toString() {
+        return "NewsArticle{" +
+                "id='" + id + '\'' +
+                ", url='" + url + '\'' +
+                ", title='" + title + '\'' +
+                ", visited=" + visited +
+                ", matchedKeywords=" + matchedKeywords +
+                ", relevant=" + relevant +
+                ", createdAt=" + createdAt +
+                ", lastUpdated=" + lastUpdated +
+                ", sourceWebsite='" + sourceWebsite + '\'' +
+                ", duplicateOf='" + duplicateOf + '\'' +
+                ", analysisAttempts=" + analysisAttempts +
+                '}';
+    }
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package com.pumpaj.evropo.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A pipeline run of one news source, as reported by the job API.
+ * Progress fields are updated by the running pipeline and read by API requests,
+ * so they are volatile.
+ */
+public class PipelineJob {
+
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED
+    }
+
+    private final String id;
+    private final String source;
+    private final String trigger;
+    private final Instant createdAt = Instant.now();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile String stage;
+    private volatile int analysedArticles;
+    private volatile int totalArticles;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile PipelineResult result;
+
+    @JsonIgnore
+    private final CompletableFuture<PipelineResult> completion = new CompletableFuture<>();
+
+    public PipelineJob(String id, String source, String trigger) {
+        this.id = id;
+        this.source = source;
+        this.trigger = trigger;
+    }
+
+    public void markRunning() {
+        this.startedAt = Instant.now();
+        this.status = Status.RUNNING;
+    }
+
+    public void markSucceeded(PipelineResult result) {
+        this.result = result;
+        this.finishedAt = Instant.now();
+        this.status = Status.SUCCEEDED;
+        completion.complete(result);
+    }
+
+    public void markFailed(Throwable cause) {
+        this.error = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+        this.finishedAt = Instant.now();
+        this.status = Status.FAILED;
+        completion.completeExceptionally(cause);
+    }
+
+    public void updateProgress(int analysedArticles, int totalArticles) {
+        this.analysedArticles = analysedArticles;
+        this.totalArticles = totalArticles;
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+
+    @JsonIgnore
+    public CompletableFuture<PipelineResult> getCompletion() {
+        return completion;
+    }
+
+    // Getters and setters
+    public String getId() {
+        return id;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getTrigger() {
+        return trigger;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public void setStage(String stage) {
+        this.stage = stage;
+    }
+
+    public int getAnalysedArticles() {
+        return analysedArticles;
+    }
+
+    public int getTotalArticles() {
+        return totalArticles;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public PipelineResult getResult() {
+        return result;
+    }
+}
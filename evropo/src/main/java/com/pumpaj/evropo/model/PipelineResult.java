@@ -0,0 +1,80 @@
+package com.pumpaj.evropo.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of one pipeline run of a news source: how many links were new on the
+ * listing page, which articles were viable and how many of them were analysed,
+ * failed, or were deferred because the LLM was throttled or unavailable.
+ */
+public class PipelineResult {
+    private String source;
+    private int newArticles;
+    private int analysed;
+    private int failed;
+    private int deferred;
+    private List<NewsArticle> viableLinks = new ArrayList<>();
+
+    public PipelineResult() {
+    }
+
+    public PipelineResult(String source, int newArticles, int analysed, int failed, int deferred,
+                          List<NewsArticle> viableLinks) {
+        this.source = source;
+        this.newArticles = newArticles;
+        this.analysed = analysed;
+        this.failed = failed;
+        this.deferred = deferred;
+        this.viableLinks = viableLinks;
+    }
+
+    // Getters and setters
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public int getNewArticles() {
+        return newArticles;
+    }
+
+    public void setNewArticles(int newArticles) {
+        this.newArticles = newArticles;
+    }
+
+    public int getAnalysed() {
+        return analysed;
+    }
+
+    public void setAnalysed(int analysed) {
+        this.analysed = analysed;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public int getDeferred() {
+        return deferred;
+    }
+
+    public void setDeferred(int deferred) {
+        this.deferred = deferred;
+    }
+
+    public List<NewsArticle> getViableLinks() {
+        return viableLinks;
+    }
+
+    public void setViableLinks(List<NewsArticle> viableLinks) {
+        this.viableLinks = viableLinks;
+    }
+}
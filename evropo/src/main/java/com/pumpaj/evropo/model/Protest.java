@@ -1,20 +1,70 @@
 package com.pumpaj.evropo.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
+import org.springframework.data.mongodb.core.index.Indexed;
 
+import java.time.Instant;
+import java.util.Optional;
+
+// Dashboard queries can project fields away, those are left out instead of sent as null
+@JsonInclude(JsonInclude.Include.NON_NULL)
 @Document(collection = "protests")
-@CompoundIndex(name = "organizer_location_date_idx", def = "{'organizer': 1, 'location': 1, 'date': 1}", unique = true)
+// Protests the merge job hasn't keyed yet have no locationId and stay out of the index
+@CompoundIndex(name = "organizer_location_id_date_idx", def = "{'organizer': 1, 'locationId': 1, 'date': 1}",
+        unique = true, partialFilter = "{'locationId': {$exists: true}}")
 public class Protest {
     @Id
     private String id;
+    // Code of an Organizer
     private String organizer;
+    // The gazetteer name of the place, or the location as reported when it isn't in the gazetteer
     private String location;
-    private String date;
+    // Gazetteer id of the place, or the folded location when it isn't in the gazetteer
+    private String locationId;
+    // Midnight UTC of the protest date
+    @Indexed(name = "date_idx")
+    private Instant date;
     private Count count;
+    // Latitude and longitude, kept for the Grafana geomap
     private Double x;
     private Double y;
+    // The same place as a GeoJSON point for area and distance queries
+    @GeoSpatialIndexed(name = "position_2dsphere", type = GeoSpatialIndexType.GEO_2DSPHERE)
+    private GeoJsonPoint position;
+
+    /**
+     * Who organized a protest, stored as its code.
+     */
+    public enum Organizer {
+        GOVERNMENT("gov"),
+        // Students and other organizers: citizens, unions, the opposition
+        STUDENTS_AND_OTHERS("s&o");
+
+        private final String code;
+
+        Organizer(String code) {
+            this.code = code;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public static Optional<Organizer> fromCode(String code) {
+            for (Organizer organizer : values()) {
+                if (organizer.code.equalsIgnoreCase(code)) {
+                    return Optional.of(organizer);
+                }
+            }
+            return Optional.empty();
+        }
+    }
 
     public static class Count {
         private Integer government;
@@ -63,11 +113,19 @@ public class Protest {
         this.location = location;
     }
 
-    public String getDate() {
+    public String getLocationId() {
+        return locationId;
+    }
+
+    public void setLocationId(String locationId) {
+        this.locationId = locationId;
+    }
+
+    public Instant getDate() {
         return date;
     }
 
-    public void setDate(String date) {
+    public void setDate(Instant date) {
         this.date = date;
     }
 
@@ -94,4 +152,12 @@ public class Protest {
     public void setY(Double y) {
         this.y = y;
     }
-}
\ No newline at end of file
+
+    public GeoJsonPoint getPosition() {
+        return position;
+    }
+
+    public void setPosition(GeoJsonPoint position) {
+        this.position = position;
+    }
+}
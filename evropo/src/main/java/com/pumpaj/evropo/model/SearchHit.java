@@ -0,0 +1,54 @@
+package com.pumpaj.evropo.model;
+
+/**
+ * One ranked result from the article full-text index.
+ */
+public class SearchHit {
+    private String url;
+    private String title;
+    private String source;
+    private float score;
+
+    public SearchHit() {
+    }
+
+    public SearchHit(String url, String title, String source, float score) {
+        this.url = url;
+        this.title = title;
+        this.source = source;
+        this.score = score;
+    }
+
+    // Getters and setters
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public float getScore() {
+        return score;
+    }
+
+    public void setScore(float score) {
+        this.score = score;
+    }
+}
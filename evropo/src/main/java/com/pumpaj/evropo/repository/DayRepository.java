@@ -4,9 +4,10 @@ import com.pumpaj.evropo.model.Day;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
+import java.time.Instant;
+import java.util.List;
 
 @Repository
 public interface DayRepository extends MongoRepository<Day, String> {
-    Optional<Day> findByDate(String date);
+    List<Day> findByDate(Instant date);
 }
\ No newline at end of file
@@ -4,9 +4,10 @@ import com.pumpaj.evropo.model.Protest;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.Optional;
 
 @Repository
 public interface ProtestRepository extends MongoRepository<Protest, String> {
-    Optional<Protest> findByOrganizerAndLocationAndDate(String organizer, String location, String date);
+    Optional<Protest> findByOrganizerAndLocationAndDate(String organizer, String location, Instant date);
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.pumpaj.evropo.service;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+
+/**
+ * Polling interval of one news source, derived from how fast it publishes new articles.
+ * The arrival rate is a moving average over past runs, and the next poll is planned for when
+ * about {@code targetNewPerPoll} new articles are expected: busy protest days are polled often,
+ * quiet ones rarely. During quiet hours the source is always polled at the maximum interval.
+ */
+public class AdaptivePollingInterval {
+
+    // Weight of the latest run in the moving average
+    private static final double SMOOTHING = 0.5;
+
+    private final Duration minInterval;
+    private final Duration maxInterval;
+    private final double targetNewPerPoll;
+    private final LocalTime quietStart;
+    private final LocalTime quietEnd;
+
+    private Duration current;
+    private double articlesPerHour = -1;
+
+    public AdaptivePollingInterval(Duration minInterval, Duration maxInterval, Duration initialInterval,
+                                   double targetNewPerPoll, LocalTime quietStart, LocalTime quietEnd) {
+        if (minInterval.compareTo(maxInterval) > 0) {
+            throw new IllegalArgumentException("Minimum polling interval is longer than the maximum");
+        }
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval;
+        this.targetNewPerPoll = targetNewPerPoll;
+        this.quietStart = quietStart;
+        this.quietEnd = quietEnd;
+        this.current = clamp(initialInterval);
+    }
+
+    /**
+     * Records a finished run and returns the delay until the next one.
+     *
+     * @param newArticles    links that were new on the listing page
+     * @param sinceLastRun   time since the previous run started, or null for the first run
+     * @param now            when the run finished, in the source's time zone
+     */
+    public synchronized Duration record(int newArticles, Duration sinceLastRun, ZonedDateTime now) {
+        if (sinceLastRun != null && !sinceLastRun.isZero() && !sinceLastRun.isNegative()) {
+            double hours = sinceLastRun.toMillis() / 3_600_000.0;
+            double sample = newArticles / hours;
+            articlesPerHour = articlesPerHour < 0 ? sample : SMOOTHING * sample + (1 - SMOOTHING) * articlesPerHour;
+
+            if (articlesPerHour <= 0) {
+                current = maxInterval;
+            } else {
+                current = clamp(Duration.ofMillis((long) (targetNewPerPoll / articlesPerHour * 3_600_000)));
+            }
+        }
+
+        return isQuiet(now.toLocalTime()) ? maxInterval : current;
+    }
+
+    public synchronized Duration getCurrent() {
+        return current;
+    }
+
+    public synchronized double getArticlesPerHour() {
+        return Math.max(articlesPerHour, 0);
+    }
+
+    boolean isQuiet(LocalTime time) {
+        if (quietStart == null || quietEnd == null || quietStart.equals(quietEnd)) {
+            return false;
+        }
+        if (quietStart.isBefore(quietEnd)) {
+            return !time.isBefore(quietStart) && time.isBefore(quietEnd);
+        }
+        // Quiet hours that wrap around midnight, e.g. 23:00 to 06:00
+        return !time.isBefore(quietStart) || time.isBefore(quietEnd);
+    }
+
+    private Duration clamp(Duration interval) {
+        if (interval.compareTo(minInterval) < 0) {
+            return minInterval;
+        }
+        if (interval.compareTo(maxInterval) > 0) {
+            return maxInterval;
+        }
+        return interval;
+    }
+}
@@ -0,0 +1,158 @@
+package com.pumpaj.evropo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.pumpaj.evropo.model.AnalysisCacheEntry;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Persistent cache of LLM analyses, so an article whose text didn't change is never sent to
+ * Gemini twice. Entries are keyed by the SHA-256 of the normalized text plus the prompt version,
+ * expire after a TTL and are trimmed to a maximum count, least recently hit first.
+ */
+@Service
+public class AnalysisCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final String TTL_INDEX = "createdAt_ttl";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${analysis.cache.ttl-days:30}")
+    private long ttlDays;
+
+    @Value("${analysis.cache.max-entries:50000}")
+    private long maxEntries;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates the indexes, and changes the TTL of an existing index in place when
+     * analysis.cache.ttl-days changed, which creating it again would reject.
+     */
+    @PostConstruct
+    public void ensureIndexes() {
+        IndexOperations indexOperations = mongoTemplate.indexOps(AnalysisCacheEntry.class);
+        Duration ttl = Duration.ofDays(ttlDays);
+        Optional<IndexInfo> existing = indexOperations.getIndexInfo().stream()
+                .filter(index -> TTL_INDEX.equals(index.getName()))
+                .findFirst();
+        if (existing.isPresent() && !existing.get().getExpireAfter().equals(Optional.of(ttl))) {
+            mongoTemplate.getDb().runCommand(new Document("collMod", mongoTemplate.getCollectionName(AnalysisCacheEntry.class))
+                    .append("index", new Document("name", TTL_INDEX).append("expireAfterSeconds", ttl.toSeconds())));
+            System.out.println("Changed the analysis cache TTL to " + ttlDays + " days");
+        }
+
+        indexOperations.ensureIndex(new Index()
+                .named(TTL_INDEX)
+                .on("createdAt", Sort.Direction.ASC)
+                .expire(ttl));
+        indexOperations.ensureIndex(new Index().named("lastHitAt").on("lastHitAt", Sort.Direction.ASC));
+    }
+
+    /**
+     * Returns the cached analysis of this text made with the given prompt version, if any.
+     */
+    public Optional<ObjectNode> get(String articleText, String promptVersion) {
+        String id = contentHash(articleText) + ":" + promptVersion;
+
+        AnalysisCacheEntry entry = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(id)),
+                new Update().set("lastHitAt", new Date()),
+                FindAndModifyOptions.options().returnNew(false),
+                AnalysisCacheEntry.class);
+
+        if (entry == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        try {
+            hits.incrementAndGet();
+            return Optional.of((ObjectNode) objectMapper.readTree(entry.getResultJson()));
+        } catch (JsonProcessingException | ClassCastException e) {
+            System.err.println("Dropping unreadable analysis cache entry " + id + ": " + e.getMessage());
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(id)), AnalysisCacheEntry.class);
+            return Optional.empty();
+        }
+    }
+
+    public void put(String articleText, String promptVersion, ObjectNode analysis) {
+        mongoTemplate.save(new AnalysisCacheEntry(contentHash(articleText), promptVersion, analysis.toString()));
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Removes the least recently hit entries above the configured maximum.
+     */
+    @Scheduled(fixedDelayString = "${analysis.cache.trim-interval-ms:3600000}")
+    public void trim() {
+        long overflow = mongoTemplate.estimatedCount(AnalysisCacheEntry.class) - maxEntries;
+        if (overflow <= 0) {
+            return;
+        }
+
+        Query oldest = new Query().with(Sort.by(Sort.Direction.ASC, "lastHitAt")).limit((int) overflow);
+        oldest.fields().include("_id");
+        List<String> ids = mongoTemplate.find(oldest, AnalysisCacheEntry.class).stream()
+                .map(AnalysisCacheEntry::getId)
+                .collect(Collectors.toList());
+
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), AnalysisCacheEntry.class);
+        System.out.println("Trimmed " + ids.size() + " analysis cache entries (" + hits.get() + " hits, " + misses.get() + " misses so far)");
+    }
+
+    /**
+     * SHA-256 of the text after Unicode normalization and whitespace collapsing,
+     * so re-scrapes that only differ in markup spacing hit the same entry.
+     */
+    static String contentHash(String articleText) {
+        String normalized = Normalizer.normalize(articleText, Normalizer.Form.NFC);
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.pumpaj.evropo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs article analyses on a bounded thread pool.
+ * Every source gets its own cap on in-flight analyses, so one busy source can't
+ * take all the threads. A failing article never stops the rest of the batch.
+ * Articles the LLM can't take right now are deferred and stay queued for the next run.
+ */
+@Service
+public class AnalysisDispatcher {
+
+    @Autowired
+    private AnalyserService analyserService;
+
+    @Autowired
+    private LlmGuard llmGuard;
+
+    @Value("${analysis.executor.per-source-limit:2}")
+    private int perSourceLimit;
+
+    @Value("${analysis.batch.enabled:true}")
+    private boolean batchEnabled;
+
+    // Article text tokens per combined request, the prompt itself comes on top
+    @Value("${analysis.batch.max-tokens:12000}")
+    private int batchMaxTokens;
+
+    @Value("${analysis.batch.max-articles:5}")
+    private int batchMaxArticles;
+
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Semaphore> sourcePermits = new ConcurrentHashMap<>();
+
+    public AnalysisDispatcher(@Value("${analysis.executor.threads:4}") int threads,
+                              @Value("${analysis.executor.queue-capacity:100}") int queueCapacity) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                threads, threads,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "analysis-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Analyses all URLs of one source and blocks until every analysis has finished.
+     * In batch mode the articles are fetched first, and those that still need an LLM analysis
+     * are packed into batches sent as one request each. While the LLM circuit is open the
+     * remaining articles are deferred without being fetched.
+     * Returns the outcome of every URL.
+     */
+    public AnalysisReport analyseAll(List<String> urls, NewsSource source, PipelineProgress progress) {
+        Semaphore permits = sourcePermits.computeIfAbsent(source.getId(), key -> new Semaphore(perSourceLimit));
+        AnalysisReport report = new AnalysisReport();
+        AtomicInteger completed = new AtomicInteger();
+
+        if (!batchEnabled) {
+            runAll(urls, permits, url -> {
+                try {
+                    report.record(url, llmGuard.isOpen()
+                            ? AnalysisOutcome.DEFERRED
+                            : analyserService.analyseAndProcess(url, source));
+                } finally {
+                    progress.analysed(completed.incrementAndGet(), urls.size());
+                }
+            });
+        } else {
+            List<AnalyserService.PendingArticle> pending = Collections.synchronizedList(new ArrayList<>());
+            runAll(urls, permits, url -> {
+                if (llmGuard.isOpen()) {
+                    report.record(url, AnalysisOutcome.DEFERRED);
+                    progress.analysed(completed.incrementAndGet(), urls.size());
+                    return;
+                }
+                try {
+                    Optional<AnalyserService.PendingArticle> article = analyserService.prepare(url, source);
+                    if (article.isPresent()) {
+                        pending.add(article.get());
+                        return;
+                    }
+                    report.record(url, AnalysisOutcome.ANALYSED);
+                } catch (AnalysisPendingException e) {
+                    System.out.println("Deferring analysis: " + e.getMessage());
+                    report.record(url, AnalysisOutcome.DEFERRED);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    report.record(url, AnalysisOutcome.DEFERRED);
+                } catch (Exception e) {
+                    System.err.println("Error preparing URL " + url + ": " + e.getMessage());
+                    report.record(url, AnalysisOutcome.FAILED);
+                }
+                progress.analysed(completed.incrementAndGet(), urls.size());
+            });
+
+            List<List<AnalyserService.PendingArticle>> batches = pack(pending, batchMaxTokens, batchMaxArticles);
+            runAll(batches, permits, batch -> {
+                try {
+                    // Also while the circuit is open, the batch's reservations of duplicate detection are released
+                    List<AnalysisOutcome> outcomes = analyserService.analyseBatch(batch);
+                    for (int i = 0; i < batch.size(); i++) {
+                        report.record(batch.get(i).getUrl(), outcomes.get(i));
+                    }
+                } finally {
+                    progress.analysed(completed.addAndGet(batch.size()), urls.size());
+                }
+            });
+        }
+
+        System.out.println("Analysed " + report.getAnalysed().size() + "/" + urls.size() + " articles from "
+                + source.getSourceTag() + " (" + report.getFailed().size() + " failed, "
+                + report.getDeferred().size() + " deferred)");
+        return report;
+    }
+
+    /**
+     * Runs one task per item on the pool, at most the source's limit at a time, and waits
+     * for all of them. Tasks record their own outcomes; an item whose task throws or is
+     * rejected is left out of the report, so it stays unvisited and is picked up next run.
+     */
+    private <T> void runAll(List<T> items, Semaphore permits, AnalysisTask<T> task) {
+        CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+        int submitted = 0;
+
+        try {
+            for (T item : items) {
+                // Wait for a free slot for this source before handing the task to the pool
+                permits.acquire();
+                try {
+                    completionService.submit(() -> {
+                        try {
+                            task.run(item);
+                        } catch (Exception e) {
+                            System.err.println("Analysis task failed for " + item + ": " + e.getMessage());
+                        } finally {
+                            permits.release();
+                        }
+                        return null;
+                    });
+                    submitted++;
+                } catch (RejectedExecutionException e) {
+                    permits.release();
+                    System.err.println("Analysis executor rejected " + item + ": " + e.getMessage());
+                }
+            }
+
+            for (int i = 0; i < submitted; i++) {
+                try {
+                    completionService.take().get();
+                } catch (ExecutionException e) {
+                    // Already logged by the task
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Interrupted while waiting for analyses");
+        }
+    }
+
+    /**
+     * Packs articles into batches of at most maxArticles whose estimated token count stays
+     * within maxTokens. Tokens are estimated as characters / 4; an article over the budget
+     * on its own gets a batch of its own.
+     */
+    static List<List<AnalyserService.PendingArticle>> pack(List<AnalyserService.PendingArticle> articles,
+                                                           int maxTokens, int maxArticles) {
+        List<List<AnalyserService.PendingArticle>> batches = new ArrayList<>();
+        List<AnalyserService.PendingArticle> current = new ArrayList<>();
+        int currentTokens = 0;
+
+        for (AnalyserService.PendingArticle article : articles) {
+            int tokens = article.getText().length() / 4 + 1;
+            if (!current.isEmpty() && (currentTokens + tokens > maxTokens || current.size() >= maxArticles)) {
+                batches.add(current);
+                current = new ArrayList<>();
+                currentTokens = 0;
+            }
+            current.add(article);
+            currentTokens += tokens;
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+
+    @FunctionalInterface
+    private interface AnalysisTask<T> {
+        void run(T item) throws Exception;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
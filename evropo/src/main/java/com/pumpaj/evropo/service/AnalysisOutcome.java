@@ -0,0 +1,13 @@
+package com.pumpaj.evropo.service;
+
+/**
+ * What happened to one article in an analysis run.
+ */
+public enum AnalysisOutcome {
+    // Analysed, served from the cache or linked to the article it duplicates
+    ANALYSED,
+    // Could not be analysed, e.g. the page couldn't be scraped or the answer wasn't valid JSON
+    FAILED,
+    // The LLM backend throttled or was unhealthy, the article is left for a later run
+    DEFERRED
+}
@@ -0,0 +1,12 @@
+package com.pumpaj.evropo.service;
+
+/**
+ * The article copies one whose analysis hasn't finished yet. It is deferred rather than
+ * analysed a second time, the next run links it or analyses it.
+ */
+public class AnalysisPendingException extends Exception {
+
+    public AnalysisPendingException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,35 @@
+package com.pumpaj.evropo.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcomes of the articles of one analysis run, grouped by outcome. Thread-safe.
+ */
+public class AnalysisReport {
+
+    private final List<String> analysed = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> failed = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> deferred = Collections.synchronizedList(new ArrayList<>());
+
+    public void record(String url, AnalysisOutcome outcome) {
+        switch (outcome) {
+            case ANALYSED -> analysed.add(url);
+            case FAILED -> failed.add(url);
+            case DEFERRED -> deferred.add(url);
+        }
+    }
+
+    public List<String> getAnalysed() {
+        return List.copyOf(analysed);
+    }
+
+    public List<String> getFailed() {
+        return List.copyOf(failed);
+    }
+
+    public List<String> getDeferred() {
+        return List.copyOf(deferred);
+    }
+}
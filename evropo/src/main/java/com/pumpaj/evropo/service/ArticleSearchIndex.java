@@ -0,0 +1,216 @@
+package com.pumpaj.evropo.service;
+
+import com.pumpaj.evropo.model.NewsArticle;
+import com.pumpaj.evropo.model.SearchHit;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.sr.SerbianAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Embedded Lucene index over article titles and bodies, kept next to the article collections.
+ * Text goes through Lucene's SerbianAnalyzer: Cyrillic is transliterated to Latin, diacritics are
+ * folded and words are stemmed, so "šetnja", "setnje" and "шетњом" all find the same articles.
+ * Searches run against a near-real-time searcher held in memory and don't touch MongoDB.
+ */
+@Service
+public class ArticleSearchIndex {
+
+    private static final String URL = "url";
+    private static final String SOURCE = "source";
+    private static final String TITLE = "title";
+    private static final String BODY = "body";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private NewsSourceRegistry sourceRegistry;
+
+    private final Analyzer analyzer = new SerbianAnalyzer();
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+
+    public ArticleSearchIndex(@Value("${search.index.path:data/search-index}") String indexPath) throws IOException {
+        IndexWriterConfig config = new IndexWriterConfig(analyzer);
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+
+        this.writer = new IndexWriter(FSDirectory.open(Path.of(indexPath)), config);
+        this.searcherManager = new SearcherManager(writer, null);
+    }
+
+    /**
+     * Indexes or re-titles an article, keeping any body text indexed earlier.
+     */
+    public void indexTitle(String url, String source, String title) {
+        update(url, source, title, null);
+    }
+
+    /**
+     * Adds the scraped article text to an article, keeping its indexed title.
+     */
+    public void indexBody(String url, String source, String body) {
+        update(url, source, null, body);
+    }
+
+    private synchronized void update(String url, String source, String title, String body) {
+        try {
+            Document existing = findByUrl(url);
+            String existingTitle = existing != null ? existing.get(TITLE) : null;
+            String existingBody = existing != null ? existing.get(BODY) : null;
+
+            if (existing != null && body == null && title != null && title.equals(existingTitle)) {
+                return;
+            }
+
+            writer.updateDocument(new Term(URL, url), buildDocument(url, source,
+                    title != null ? title : existingTitle,
+                    body != null ? body : existingBody));
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            System.err.println("Error indexing article " + url + ": " + e.getMessage());
+        }
+    }
+
+    private Document buildDocument(String url, String source, String title, String body) {
+        Document document = new Document();
+        document.add(new StringField(URL, url, Field.Store.YES));
+        document.add(new StringField(SOURCE, source, Field.Store.YES));
+        if (title != null) {
+            document.add(new TextField(TITLE, title, Field.Store.YES));
+        }
+        if (body != null) {
+            document.add(new TextField(BODY, body, Field.Store.YES));
+        }
+        return document;
+    }
+
+    private Document findByUrl(String url) throws IOException {
+        // Writes are rare next to searches, so make sure the previous write of this URL is visible
+        searcherManager.maybeRefreshBlocking();
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs topDocs = searcher.search(new TermQuery(new Term(URL, url)), 1);
+            if (topDocs.scoreDocs.length == 0) {
+                return null;
+            }
+            return searcher.storedFields().document(topDocs.scoreDocs[0].doc);
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * Ranked full-text search over titles and bodies, titles weigh twice as much.
+     * Accepts Lucene query syntax ("studenti AND blokada", "protest*"); anything that
+     * doesn't parse is searched as plain text. Source may be null to search all sources.
+     */
+    public List<SearchHit> search(String queryText, String source, int limit) throws IOException {
+        MultiFieldQueryParser parser = new MultiFieldQueryParser(
+                new String[]{TITLE, BODY}, analyzer, Map.of(TITLE, 2f, BODY, 1f));
+
+        Query textQuery;
+        try {
+            textQuery = parser.parse(queryText);
+        } catch (ParseException e) {
+            try {
+                textQuery = parser.parse(QueryParser.escape(queryText));
+            } catch (ParseException escapedException) {
+                return List.of();
+            }
+        }
+
+        BooleanQuery.Builder query = new BooleanQuery.Builder().add(textQuery, BooleanClause.Occur.MUST);
+        if (source != null && !source.isEmpty()) {
+            query.add(new TermQuery(new Term(SOURCE, source)), BooleanClause.Occur.FILTER);
+        }
+
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            List<SearchHit> hits = new ArrayList<>();
+            for (ScoreDoc scoreDoc : searcher.search(query.build(), limit).scoreDocs) {
+                Document document = searcher.storedFields().document(scoreDoc.doc);
+                hits.add(new SearchHit(document.get(URL), document.get(TITLE), document.get(SOURCE), scoreDoc.score));
+            }
+            return hits;
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * Fills an empty index with the titles already stored in MongoDB.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void indexExistingArticles() throws IOException {
+        if (writer.getDocStats().numDocs > 0) {
+            return;
+        }
+
+        org.springframework.data.mongodb.core.query.Query query = new org.springframework.data.mongodb.core.query.Query();
+        query.fields().include("url", "title");
+
+        // The index is empty, so documents can be added without looking up earlier versions
+        for (NewsSource source : sourceRegistry.getSources()) {
+            try (Stream<NewsArticle> articles = mongoTemplate.stream(query, NewsArticle.class, source.getCollectionName())) {
+                for (NewsArticle article : (Iterable<NewsArticle>) articles::iterator) {
+                    writer.updateDocument(new Term(URL, article.getUrl()), buildDocument(article.getUrl(), source.getSourceTag(), article.getTitle(), null));
+                }
+            }
+        }
+        writer.commit();
+        searcherManager.maybeRefresh();
+
+        System.out.println("Indexed " + writer.getDocStats().numDocs + " existing articles for search");
+    }
+
+    @Scheduled(fixedDelayString = "${search.index.refresh-interval-ms:1000}")
+    public void refresh() throws IOException {
+        searcherManager.maybeRefresh();
+    }
+
+    @Scheduled(fixedDelayString = "${search.index.commit-interval-ms:60000}")
+    public void commit() throws IOException {
+        if (writer.hasUncommittedChanges()) {
+            writer.commit();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+    }
+}
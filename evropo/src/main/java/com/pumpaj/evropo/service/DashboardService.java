@@ -0,0 +1,279 @@
+package com.pumpaj.evropo.service;
+
+import com.pumpaj.evropo.model.DashboardPage;
+import com.pumpaj.evropo.model.Day;
+import com.pumpaj.evropo.model.DayRollup;
+import com.pumpaj.evropo.model.Protest;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Read side of the dashboards. Queries filter and project on the server and page with
+ * keyset cursors on (date, key), so a page costs the same no matter how deep it is.
+ */
+@Service
+public class DashboardService {
+
+    private static final Set<String> PROTEST_FIELDS = Set.of(
+            "organizer", "location", "locationId", "count", "count.government", "count.independent", "x", "y", "position");
+    private static final Set<String> DAY_FIELDS = Set.of(
+            "stateDrivenMessaging", "proStudentMessaging", "studentMentions", "stateMentions",
+            "propagandaCount", "proProtestCount");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Protests by date, then id. Fields empty means all of them, date and id are always returned.
+     */
+    public DashboardPage<Protest> findProtests(Instant from, Instant to, String organizer, String location,
+                                               List<String> fields, String after, int limit) {
+        return findProtests(protestCriteria(from, to, organizer, location), fields, after, limit);
+    }
+
+    /**
+     * Protests inside a map viewport, paged by date like {@link #findProtests}.
+     */
+    public DashboardPage<Protest> findProtestsWithin(double minLng, double minLat, double maxLng, double maxLat,
+                                                     Instant from, Instant to, String organizer,
+                                                     List<String> fields, String after, int limit) {
+        checkPosition(minLng, minLat);
+        checkPosition(maxLng, maxLat);
+        if (minLng >= maxLng || minLat >= maxLat) {
+            throw new IllegalArgumentException("The box needs minLng < maxLng and minLat < maxLat");
+        }
+
+        GeoJsonPolygon box = new GeoJsonPolygon(
+                new Point(minLng, minLat), new Point(maxLng, minLat),
+                new Point(maxLng, maxLat), new Point(minLng, maxLat),
+                new Point(minLng, minLat));
+        List<Criteria> criteria = protestCriteria(from, to, organizer, null);
+        criteria.add(Criteria.where("position").within(box));
+        return findProtests(criteria, fields, after, limit);
+    }
+
+    /**
+     * Protests within radiusKm of a point, nearest first. $near decides the order, so the
+     * answer is a single page of at most limit protests.
+     */
+    public DashboardPage<Protest> findProtestsNear(GeoJsonPoint center, double radiusKm, Instant from, Instant to,
+                                                   String organizer, List<String> fields, int limit) {
+        checkPosition(center.getX(), center.getY());
+        if (radiusKm <= 0) {
+            throw new IllegalArgumentException("The radius must be positive");
+        }
+        checkFields(fields, PROTEST_FIELDS);
+
+        List<Criteria> criteria = protestCriteria(from, to, organizer, null);
+        // Meters, because the center is a GeoJSON point
+        criteria.add(Criteria.where("position").near(center).maxDistance(radiusKm * 1000));
+        Query query = Query.query(all(criteria)).limit(limit);
+        includeFields(query, fields);
+        return new DashboardPage<>(mongoTemplate.find(query, Protest.class), null);
+    }
+
+    private List<Criteria> protestCriteria(Instant from, Instant to, String organizer, String location) {
+        List<Criteria> criteria = new ArrayList<>();
+        // Dates the migration couldn't read are still strings and sort apart from real dates
+        criteria.add(Criteria.where("date").type(9));
+        addRange(criteria, "date", from, to);
+        if (organizer != null) {
+            criteria.add(Criteria.where("organizer").is(organizer));
+        }
+        if (location != null) {
+            criteria.add(Criteria.where("location").is(location));
+        }
+        return criteria;
+    }
+
+    private DashboardPage<Protest> findProtests(List<Criteria> criteria, List<String> fields, String after, int limit) {
+        if (after != null) {
+            Cursor cursor = Cursor.decode(after);
+            criteria.add(cursor.after("date", "id"));
+        }
+
+        Query query = Query.query(all(criteria))
+                .with(Sort.by("date", "id"))
+                .limit(limit + 1);
+        checkFields(fields, PROTEST_FIELDS);
+        includeFields(query, fields);
+
+        return page(mongoTemplate.find(query, Protest.class), limit, protest -> new Cursor(protest.getDate(), protest.getId()));
+    }
+
+    /**
+     * Day counts per (date, source), summed over a day, a week or a month. Days are summed from
+     * the measurements, weeks and months read the rollups as they are.
+     */
+    public DashboardPage<DayRollup> findDays(Instant from, Instant to, String source, String period,
+                                             List<String> fields, String after, int limit) {
+        checkFields(fields, DAY_FIELDS);
+        Cursor cursor = after != null ? Cursor.decode(after) : null;
+
+        List<DayRollup> days;
+        if ("day".equals(period)) {
+            days = sumDays(from, to, source, fields, cursor, limit + 1);
+        } else {
+            RollupPeriod rollup = parsePeriod(period);
+            List<Criteria> criteria = new ArrayList<>();
+            addRange(criteria, "start", from, to);
+            if (source != null) {
+                criteria.add(Criteria.where("source").is(source));
+            }
+            if (cursor != null) {
+                criteria.add(cursor.after("start", "source"));
+            }
+
+            Query query = Query.query(all(criteria))
+                    .with(Sort.by("start", "source"))
+                    .limit(limit + 1);
+            if (!fields.isEmpty()) {
+                query.fields().include("start", "source");
+                fields.forEach(field -> query.fields().include(field));
+            }
+            days = mongoTemplate.find(query, DayRollup.class, rollup.getCollection());
+        }
+
+        return page(days, limit, day -> new Cursor(day.getStart(), day.getSource()));
+    }
+
+    private List<DayRollup> sumDays(Instant from, Instant to, String source, List<String> fields, Cursor cursor, int limit) {
+        List<Criteria> match = new ArrayList<>();
+        // The cursor can't skip groups before they are summed, but it can skip whole earlier dates
+        addRange(match, "date", cursor != null ? latest(from, cursor.date) : from, to);
+        if (source != null) {
+            match.add(Criteria.where("source").is(source));
+        }
+
+        Document sums = new Document("_id", new Document("date", "$date").append("source", "$source"));
+        Document project = new Document("_id", 0)
+                .append("start", "$_id.date")
+                .append("source", "$_id.source");
+        for (String field : DayMetricsWriter.FIELDS) {
+            if (fields.isEmpty() || fields.contains(field.split("\\.")[0])) {
+                String name = field.replace(".", "_");
+                sums.append(name, new Document("$sum", "$" + field));
+                project.append(field, "$" + name);
+            }
+        }
+
+        List<Document> pipeline = new ArrayList<>();
+        pipeline.add(new Document("$match", all(match).getCriteriaObject()));
+        pipeline.add(new Document("$group", sums));
+        pipeline.add(new Document("$project", project));
+        if (cursor != null) {
+            pipeline.add(new Document("$match", cursor.after("start", "source").getCriteriaObject()));
+        }
+        pipeline.add(new Document("$sort", new Document("start", 1).append("source", 1)));
+        pipeline.add(new Document("$limit", limit));
+
+        List<DayRollup> days = new ArrayList<>();
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(Day.class)).aggregate(pipeline)
+                .forEach(day -> days.add(mongoTemplate.getConverter().read(DayRollup.class, day)));
+        return days;
+    }
+
+    // Queries ask for one extra item, it only tells whether there is a next page
+    private static <T> DashboardPage<T> page(List<T> items, int limit, Function<T, Cursor> cursorOf) {
+        if (items.size() <= limit) {
+            return new DashboardPage<>(items, null);
+        }
+        List<T> page = new ArrayList<>(items.subList(0, limit));
+        return new DashboardPage<>(page, cursorOf.apply(page.get(limit - 1)).encode());
+    }
+
+    private static void includeFields(Query query, List<String> fields) {
+        if (!fields.isEmpty()) {
+            query.fields().include("date");
+            fields.forEach(field -> query.fields().include(field));
+        }
+    }
+
+    private static void checkPosition(double lng, double lat) {
+        if (lng < -180 || lng > 180 || lat < -90 || lat > 90) {
+            throw new IllegalArgumentException("Not a longitude and latitude: " + lng + ", " + lat);
+        }
+    }
+
+    private static void addRange(List<Criteria> criteria, String field, Instant from, Instant to) {
+        if (from != null) {
+            criteria.add(Criteria.where(field).gte(from));
+        }
+        if (to != null) {
+            criteria.add(Criteria.where(field).lt(to));
+        }
+    }
+
+    private static Criteria all(List<Criteria> criteria) {
+        return criteria.isEmpty() ? new Criteria() : new Criteria().andOperator(criteria);
+    }
+
+    private static Instant latest(Instant from, Instant cursorDate) {
+        return from == null || cursorDate.isAfter(from) ? cursorDate : from;
+    }
+
+    private static RollupPeriod parsePeriod(String period) {
+        for (RollupPeriod rollup : RollupPeriod.values()) {
+            if (rollup.getDateTruncUnit().equals(period)) {
+                return rollup;
+            }
+        }
+        throw new IllegalArgumentException("Unknown period '" + period + "', expected day, week or month");
+    }
+
+    private static void checkFields(List<String> fields, Set<String> allowed) {
+        for (String field : fields) {
+            if (!allowed.contains(field)) {
+                throw new IllegalArgumentException("Unknown field '" + field + "', expected one of " + new TreeSet<>(allowed));
+            }
+        }
+    }
+
+    /**
+     * Position after the last item of a page: its date and its id or source, which can be null.
+     */
+    static final class Cursor {
+        private final Instant date;
+        private final String key;
+
+        Cursor(Instant date, String key) {
+            this.date = date;
+            this.key = key;
+        }
+
+        String encode() {
+            String value = date.toEpochMilli() + (key != null ? ":" + key : "");
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 2);
+                return new Cursor(Instant.ofEpochMilli(Long.parseLong(parts[0])), parts.length > 1 ? parts[1] : null);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+
+        Criteria after(String dateField, String keyField) {
+            // A missing key sorts before any string, so after one every present key follows
+            Criteria sameDate = key != null
+                    ? Criteria.where(dateField).is(date).and(keyField).gt(key)
+                    : Criteria.where(dateField).is(date).and(keyField).ne(null);
+            return new Criteria().orOperator(Criteria.where(dateField).gt(date), sameDate);
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.pumpaj.evropo.service;
+
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
+import com.pumpaj.evropo.model.Day;
+import com.pumpaj.evropo.model.Protest;
+import com.pumpaj.evropo.service.DayMetricsWriter.DayKey;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Brings data stored by earlier versions up to the current model while the application runs.
+ * <ul>
+ *     <li>days: a time-series collection can't be converted in place, so a regular days collection
+ *     is renamed to days_legacy at startup and the time-series collection is created in its place.
+ *     Legacy documents are then copied over in the background as measurements without a source. Each
+ *     batch is tagged with its batch id before it is written, and a restart writes a tagged batch
+ *     again under the same id, which {@link DayMetricsWriter} doesn't count twice.</li>
+ *     <li>protests: string dates are converted document by document in the background.</li>
+ *     <li>protest keys: protests without a locationId are resolved with {@link ProtestKeyResolver} and
+ *     every group sharing a key, including one the pipeline already stored under it, is merged into one
+ *     protest. The unique index on (organizer, location, date) these fragments got past is dropped at startup.</li>
+ *     <li>protest positions: GeoJSON points are filled in from the x (latitude) and y (longitude)
+ *     fields of protests that don't have one yet.</li>
+ * </ul>
+ * All steps only touch documents that haven't been migrated yet, so a restart picks up where they stopped
+ * without doing anything twice.
+ * Startup also creates the (source, date) index of days and rebuilds any missing rollup collection.
+ */
+@Service
+public class DataMigration {
+
+    private static final String LEGACY_DAYS = "days_legacy";
+    private static final String LEGACY_PROTEST_INDEX = "organizer_location_date_idx";
+    // Fields a merged protest takes from its duplicates when it doesn't have them itself
+    private static final List<String> MERGED_FIELDS = List.of(
+            "count.government", "count.independent", "x", "y", "position");
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private DayMetricsWriter dayMetricsWriter;
+
+    @Autowired
+    private DataVersions dataVersions;
+
+    @Autowired
+    private ProtestKeyResolver protestKeyResolver;
+
+    /**
+     * Runs before anything writes days or protests, see {@link DayMetricsBuffer}.
+     */
+    @PostConstruct
+    public void prepareCollections() {
+        prepareDaysCollection();
+        dropLegacyProtestIndex();
+    }
+
+    private void prepareDaysCollection() {
+        String days = mongoTemplate.getCollectionName(Day.class);
+        Document info = collectionInfo(days);
+
+        if (info != null && !"timeseries".equals(info.getString("type"))) {
+            if (collectionInfo(LEGACY_DAYS) != null) {
+                throw new IllegalStateException("Both " + days + " and " + LEGACY_DAYS
+                        + " are regular collections, merge them before starting");
+            }
+            mongoTemplate.getCollection(days).renameCollection(
+                    new MongoNamespace(mongoTemplate.getDb().getName(), LEGACY_DAYS));
+            System.out.println("Renamed regular " + days + " collection to " + LEGACY_DAYS);
+            info = null;
+        }
+
+        if (info == null) {
+            mongoTemplate.createCollection(Day.class);
+            System.out.println("Created " + days + " time-series collection");
+        }
+        mongoTemplate.indexOps(days).ensureIndex(new Index()
+                .named("source_date_idx")
+                .on("source", Sort.Direction.ASC)
+                .on("date", Sort.Direction.ASC));
+
+        for (RollupPeriod period : RollupPeriod.values()) {
+            if (collectionInfo(period.getCollection()) == null) {
+                rebuildRollup(period, days);
+            }
+            mongoTemplate.indexOps(period.getCollection()).ensureIndex(new Index()
+                    .named("source_start_idx")
+                    .on("source", Sort.Direction.ASC)
+                    .on("start", Sort.Direction.ASC)
+                    .unique());
+        }
+    }
+
+    // Canonical names of different places can be equal, and legacy fragments would block the new keys
+    private void dropLegacyProtestIndex() {
+        String protests = mongoTemplate.getCollectionName(Protest.class);
+        boolean present = mongoTemplate.indexOps(protests).getIndexInfo().stream()
+                .anyMatch(index -> LEGACY_PROTEST_INDEX.equals(index.getName()));
+        if (present) {
+            mongoTemplate.indexOps(protests).dropIndex(LEGACY_PROTEST_INDEX);
+            System.out.println("Dropped " + LEGACY_PROTEST_INDEX + " from " + protests);
+        }
+    }
+
+    /**
+     * Sums what days holds into a missing rollup collection. Nothing writes days yet at this
+     * point, from here on {@link DayMetricsWriter} keeps the rollup up to date.
+     */
+    private void rebuildRollup(RollupPeriod period, String days) {
+        Document sums = new Document();
+        Document fields = new Document("_id", 0)
+                .append("source", "$_id.source")
+                .append("start", "$_id.start");
+        for (String field : DayMetricsWriter.FIELDS) {
+            String name = field.replace(".", "_");
+            sums.append(name, new Document("$sum", "$" + field));
+            fields.append(field, "$" + name);
+        }
+
+        Document truncate = new Document("date", "$date")
+                .append("unit", period.getDateTruncUnit())
+                .append("timezone", "UTC");
+        if (period == RollupPeriod.WEEK) {
+            truncate.append("startOfWeek", "monday");
+        }
+        Document start = new Document("$dateTrunc", truncate);
+        mongoTemplate.getCollection(days).aggregate(List.of(
+                new Document("$group", sums.append("_id", new Document("source", "$source").append("start", start))),
+                new Document("$project", fields),
+                new Document("$out", period.getCollection()))).toCollection();
+        System.out.println("Rebuilt " + period.getCollection() + " from " + days);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateInBackground() {
+        Thread thread = new Thread(() -> {
+            try {
+                migrateLegacyDays();
+                migrateProtestDates();
+                mergeProtestDuplicates();
+                migrateProtestPositions();
+            } catch (Exception e) {
+                System.err.println("Data migration failed, it resumes on the next start: " + e.getMessage());
+            }
+        }, "data-migration");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void migrateLegacyDays() {
+        if (collectionInfo(LEGACY_DAYS) == null) {
+            return;
+        }
+
+        MongoCollection<Document> legacy = mongoTemplate.getCollection(LEGACY_DAYS);
+        Bson notMigrated = Filters.ne("migrated", true);
+        int copied = 0;
+        int skipped = 0;
+
+        while (true) {
+            // A batch tagged but not marked migrated by an earlier run comes first, in full and under its own id
+            Document unfinished = legacy.find(Filters.and(notMigrated, Filters.exists("migrationBatch"))).first();
+            String batchId;
+            List<Document> batch;
+            if (unfinished != null) {
+                batchId = unfinished.getString("migrationBatch");
+                batch = legacy.find(Filters.eq("migrationBatch", batchId)).into(new ArrayList<>());
+            } else {
+                batch = legacy.find(notMigrated).limit(BATCH_SIZE).into(new ArrayList<>());
+                if (batch.isEmpty()) {
+                    break;
+                }
+                batchId = UUID.randomUUID().toString();
+                legacy.updateMany(Filters.in("_id", batch.stream().map(day -> day.get("_id")).toList()),
+                        Updates.set("migrationBatch", batchId));
+            }
+
+            Map<DayKey, Map<String, Long>> counts = new HashMap<>();
+            List<Object> ids = new ArrayList<>();
+
+            for (Document day : batch) {
+                ids.add(day.get("_id"));
+                Optional<Instant> date = DataProcessingService.parseDate(String.valueOf(day.get("date")));
+                Map<String, Long> fields = new HashMap<>();
+                for (String field : DayMetricsWriter.FIELDS) {
+                    Object value = day.getEmbedded(List.of(field.split("\\.")), Object.class);
+                    if (value instanceof Number number) {
+                        fields.put(field, number.longValue());
+                    }
+                }
+
+                if (date.isEmpty() || fields.isEmpty()) {
+                    skipped++;
+                } else {
+                    Map<String, Long> sums = counts.computeIfAbsent(new DayKey(date.get(), null), key -> new HashMap<>());
+                    fields.forEach((field, value) -> sums.merge(field, value, Long::sum));
+                    copied++;
+                }
+            }
+
+            dayMetricsWriter.write(batchId, counts, new HashSet<>());
+            legacy.updateMany(Filters.in("_id", ids), Updates.set("migrated", true));
+        }
+
+        if (copied + skipped > 0) {
+            System.out.println("Copied " + copied + " legacy days into the time-series collection, skipped "
+                    + skipped + " without a readable date or counts");
+        }
+    }
+
+    void migrateProtestDates() {
+        MongoCollection<Document> protests = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Protest.class));
+        int converted = 0;
+        int unreadable = 0;
+
+        // Legacy protests have no locationId, so the unique index can't reject a conversion,
+        // a protest stored twice this way is merged by mergeProtestDuplicates
+        for (Document protest : protests.find(Filters.type("date", "string")).into(new ArrayList<>())) {
+            Optional<Instant> date = DataProcessingService.parseDate(protest.getString("date"));
+            if (date.isEmpty()) {
+                unreadable++;
+                continue;
+            }
+            protests.updateOne(Filters.eq("_id", protest.get("_id")), Updates.set("date", Date.from(date.get())));
+            converted++;
+        }
+
+        if (converted > 0) {
+            dataVersions.bump(Protest.class);
+        }
+        if (converted + unreadable > 0) {
+            System.out.println("Converted " + converted + " protest dates, left " + unreadable
+                    + " unreadable dates as strings");
+        }
+    }
+
+    void mergeProtestDuplicates() {
+        MongoCollection<Document> protests = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Protest.class));
+        Map<ProtestKeyResolver.ProtestKey, List<Document>> groups = new LinkedHashMap<>();
+        int unresolved = 0;
+
+        for (Document protest : protests.find(Filters.and(
+                Filters.exists("locationId", false), Filters.type("date", "date"))).into(new ArrayList<>())) {
+            LocalDate date = LocalDate.ofInstant(protest.getDate("date").toInstant(), ZoneOffset.UTC);
+            Optional<ProtestKeyResolver.ProtestKey> key = protestKeyResolver.resolve(
+                    protest.getString("organizer"), protest.getString("location"), date);
+            if (key.isEmpty()) {
+                unresolved++;
+            } else {
+                groups.computeIfAbsent(key.get(), k -> new ArrayList<>()).add(protest);
+            }
+        }
+
+        int merged = 0;
+        for (Map.Entry<ProtestKeyResolver.ProtestKey, List<Document>> group : groups.entrySet()) {
+            merged += mergeGroup(protests, group.getKey(), group.getValue());
+        }
+
+        if (!groups.isEmpty()) {
+            dataVersions.bump(Protest.class);
+        }
+        if (!groups.isEmpty() || unresolved > 0) {
+            System.out.println("Keyed " + groups.size() + " protests, merged " + merged + " duplicates into them, left "
+                    + unresolved + " with an unknown organizer or location");
+        }
+    }
+
+    /**
+     * Merges protests sharing a key into the one the pipeline already stored under it, or else into
+     * the first of them. Fields the survivor is missing are filled from the others, which are deleted.
+     */
+    private int mergeGroup(MongoCollection<Document> protests, ProtestKeyResolver.ProtestKey key, List<Document> group) {
+        Bson keyFilter = Filters.and(
+                Filters.eq("organizer", key.getOrganizer().getCode()),
+                Filters.eq("locationId", key.getLocationId()),
+                Filters.eq("date", Date.from(key.getStoredDate())));
+        List<Document> duplicates = new ArrayList<>(group);
+        Document survivor = protests.find(keyFilter).first();
+        if (survivor == null) {
+            survivor = duplicates.remove(0);
+        }
+
+        Document fields = new Document("organizer", key.getOrganizer().getCode())
+                .append("locationId", key.getLocationId())
+                .append("date", Date.from(key.getStoredDate()));
+        if (survivor.get("locationId") == null) {
+            fields.append("location", key.getLocation());
+        }
+        for (String field : MERGED_FIELDS) {
+            List<String> path = List.of(field.split("\\."));
+            if (survivor.getEmbedded(path, Object.class) != null) {
+                continue;
+            }
+            duplicates.stream()
+                    .map(duplicate -> duplicate.getEmbedded(path, Object.class))
+                    .filter(Objects::nonNull)
+                    .findFirst()
+                    .ifPresent(value -> fields.append(field, value));
+        }
+
+        // Duplicates have no locationId, so they can't clash with the key. Deleting them last means a
+        // failure in between leaves them to be merged again on the next start instead of losing their fields.
+        protests.updateOne(Filters.eq("_id", survivor.get("_id")), new Document("$set", fields));
+        if (!duplicates.isEmpty()) {
+            protests.deleteMany(Filters.in("_id", duplicates.stream().map(duplicate -> duplicate.get("_id")).toList()));
+        }
+        return duplicates.size();
+    }
+
+    void migrateProtestPositions() {
+        MongoCollection<Document> protests = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Protest.class));
+        // One pipeline update on the server, GeoJSON wants longitude first
+        UpdateResult result = protests.updateMany(
+                Filters.and(Filters.exists("position", false), Filters.type("x", "number"), Filters.type("y", "number")),
+                List.of(new Document("$set", new Document("position", new Document("type", "Point")
+                        .append("coordinates", List.of("$y", "$x"))))));
+
+        if (result.getModifiedCount() > 0) {
+            dataVersions.bump(Protest.class);
+            System.out.println("Filled in the position of " + result.getModifiedCount() + " protests");
+        }
+    }
+
+    private Document collectionInfo(String name) {
+        return mongoTemplate.getDb().listCollections().filter(new Document("name", name)).first();
+    }
+}
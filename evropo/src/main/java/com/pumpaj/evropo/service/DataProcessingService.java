@@ -1,331 +1,199 @@
 package com.pumpaj.evropo.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.pumpaj.evropo.model.Protest;
-import com.pumpaj.evropo.model.Day;
-import com.pumpaj.evropo.repository.ProtestRepository;
-import com.pumpaj.evropo.repository.DayRepository;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 @Service
 public class DataProcessingService {
 
-    private final ProtestRepository protestRepository;
-    private final DayRepository dayRepository;
+    private final MongoTemplate mongoTemplate;
+    private final DayMetricsBuffer dayMetricsBuffer;
+    private final DayMetricsWriter dayMetricsWriter;
+    private final DataVersions dataVersions;
+    private final ProtestKeyResolver protestKeyResolver;
+    private final boolean bufferEnabled;
 
     @Autowired
-    public DataProcessingService(ProtestRepository protestRepository, DayRepository dayRepository) {
-        this.protestRepository = protestRepository;
-        this.dayRepository = dayRepository;
+    public DataProcessingService(MongoTemplate mongoTemplate, DayMetricsBuffer dayMetricsBuffer,
+                                 DayMetricsWriter dayMetricsWriter, DataVersions dataVersions,
+                                 ProtestKeyResolver protestKeyResolver,
+                                 @Value("${days.buffer.enabled:true}") boolean bufferEnabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.dayMetricsBuffer = dayMetricsBuffer;
+        this.dayMetricsWriter = dayMetricsWriter;
+        this.dataVersions = dataVersions;
+        this.protestKeyResolver = protestKeyResolver;
+        this.bufferEnabled = bufferEnabled;
     }
 
     /**
      * Process protest JSON data
-     * Checks if protest exists using organizer, location, and date as unique identifiers
-     * If it exists, updates with new information
-     * If it doesn't exist, creates a new protest record
+     * Resolves organizer, location and date to their canonical key with {@link ProtestKeyResolver}
+     * and upserts the protest on it (organizer_location_id_date_idx) in a single pipeline update.
+     * Count and coordinates only fill in fields the stored protest doesn't have yet.
      */
     public void processProtestJson(ObjectNode protestJson) {
-        String organizer = protestJson.path("organizer").asText();
-        String location = protestJson.path("location").asText();
-        String date = standardizeDate(protestJson.path("date").asText());
-
-        // Check if all required fields are present
-        if (organizer.isEmpty() || location.isEmpty() || date.isEmpty()) {
-            System.out.println("Protest JSON missing required fields. Skipping.");
+        Optional<ProtestKeyResolver.ProtestKey> resolved = protestKeyResolver.resolve(
+                protestJson.path("organizer").asText(),
+                protestJson.path("location").asText(),
+                protestJson.path("date").asText());
+
+        // Check if all required fields are present and readable
+        if (resolved.isEmpty()) {
+            System.out.println("Protest JSON missing required fields or with an unknown organizer. Skipping.");
             return;
         }
+        ProtestKeyResolver.ProtestKey key = resolved.get();
+        String organizer = key.getOrganizer().getCode();
+        String location = key.getLocation();
+        Instant date = key.getStoredDate();
+
+        Query query = Query.query(Criteria.where("organizer").is(organizer)
+                .and("locationId").is(key.getLocationId())
+                .and("date").is(date));
+        AggregationUpdate update = protestUpdate(protestJson, location);
+
+        UpdateResult result;
+        try {
+            result = mongoTemplate.upsert(query, update, Protest.class);
+        } catch (DuplicateKeyException e) {
+            // Another analysis inserted the same protest first, the retry fills in what it's missing
+            result = mongoTemplate.upsert(query, update, Protest.class);
+        }
+        dataVersions.bump(Protest.class);
 
-        Optional<Protest> existingProtest = protestRepository.findByOrganizerAndLocationAndDate(organizer, location, date);
-
-        if (existingProtest.isPresent()) {
-            // Update existing protest with new information
-            Protest protest = existingProtest.get();
-
-            // Update count if it exists in the JSON and not in the database
-            if (protestJson.has("count")) {
-                ObjectNode countNode = (ObjectNode) protestJson.path("count");
-                if (protest.getCount() == null) {
-                    Protest.Count count = new Protest.Count();
-
-                    if (countNode.has("government") && !countNode.path("government").isNull()) {
-                        count.setGovernment(countNode.path("government").asInt());
-                    }
-
-                    if (countNode.has("independent") && !countNode.path("independent").isNull()) {
-                        count.setIndependent(countNode.path("independent").asInt());
-                    }
-
-                    protest.setCount(count);
-                } else {
-                    Protest.Count count = protest.getCount();
-
-                    if (count.getGovernment() == null && countNode.has("government") && !countNode.path("government").isNull()) {
-                        count.setGovernment(countNode.path("government").asInt());
-                    }
-
-                    if (count.getIndependent() == null && countNode.has("independent") && !countNode.path("independent").isNull()) {
-                        count.setIndependent(countNode.path("independent").asInt());
-                    }
-                }
-            }
-
-            // Update coordinates if they exist in the JSON and not in the database
-            if (protest.getX() == null && protestJson.has("x") && !protestJson.path("x").isNull()) {
-                protest.setX(protestJson.path("x").asDouble());
-            }
-
-            if (protest.getY() == null && protestJson.has("y") && !protestJson.path("y").isNull()) {
-                protest.setY(protestJson.path("y").asDouble());
-            }
-
-            protestRepository.save(protest);
-            System.out.println("Updated existing protest: " + organizer + ", " + location + ", " + date);
+        if (result.getUpsertedId() != null) {
+            System.out.println("Created new protest: " + organizer + ", " + location + ", " + date);
         } else {
-            // Create new protest
-            Protest protest = new Protest();
-            protest.setOrganizer(organizer);
-            protest.setLocation(location);
-            protest.setDate(date);
-
-            // Set count if it exists in the JSON
-            if (protestJson.has("count")) {
-                ObjectNode countNode = (ObjectNode) protestJson.path("count");
-                Protest.Count count = new Protest.Count();
-
-                if (countNode.has("government") && !countNode.path("government").isNull()) {
-                    count.setGovernment(countNode.path("government").asInt());
-                }
-
-                if (countNode.has("independent") && !countNode.path("independent").isNull()) {
-                    count.setIndependent(countNode.path("independent").asInt());
-                }
-
-                protest.setCount(count);
-            }
-
-            // Set coordinates if they exist in the JSON
-            if (protestJson.has("x") && !protestJson.path("x").isNull()) {
-                protest.setX(protestJson.path("x").asDouble());
-            }
+            System.out.println("Updated existing protest: " + organizer + ", " + location + ", " + date);
+        }
+    }
 
-            if (protestJson.has("y") && !protestJson.path("y").isNull()) {
-                protest.setY(protestJson.path("y").asDouble());
-            }
+    /**
+     * A $set stage that keeps stored values and only fills the missing ones: every present
+     * value becomes {$ifNull: [$field, value]}. On insert the query fields are set by the upsert
+     * and all other fields are missing, so the same stage creates the new protest.
+     */
+    static AggregationUpdate protestUpdate(ObjectNode protestJson, String location) {
+        // The name of the first report stays, later ones may have spelled the place differently
+        Document fields = new Document("location", new Document("$ifNull", Arrays.asList("$location", location)));
+        JsonNode countNode = protestJson.path("count");
+        fillIfMissing(fields, "count.government", countNode.path("government"), JsonNode::asInt);
+        fillIfMissing(fields, "count.independent", countNode.path("independent"), JsonNode::asInt);
+        fillIfMissing(fields, "x", protestJson.path("x"), JsonNode::asDouble);
+        fillIfMissing(fields, "y", protestJson.path("y"), JsonNode::asDouble);
+        if (protestJson.path("x").isNumber() && protestJson.path("y").isNumber()) {
+            // GeoJSON point for the 2dsphere index, longitude first
+            Document point = new Document("type", "Point").append("coordinates",
+                    List.of(protestJson.path("y").asDouble(), protestJson.path("x").asDouble()));
+            fields.append("position", new Document("$ifNull", Arrays.asList("$position", new Document("$literal", point))));
+        }
+        return AggregationUpdate.from(List.of(context -> new Document("$set", fields)));
+    }
 
-            protestRepository.save(protest);
-            System.out.println("Created new protest: " + organizer + ", " + location + ", " + date);
+    private static void fillIfMissing(Document fields, String field, JsonNode value, Function<JsonNode, Object> converter) {
+        if (value.isMissingNode() || value.isNull()) {
+            return;
         }
+        fields.append(field, new Document("$ifNull", Arrays.asList("$" + field, converter.apply(value))));
     }
 
     /**
      * Process day JSON data
-     * Checks if day record exists using date as unique identifier
-     * If it exists, adds the values from the JSON to the existing values
-     * If it doesn't exist, creates a new day record
+     * Records the values from the JSON as a measurement of the day and source in the days
+     * time-series collection. Null or missing values are left out. With days.buffer.enabled the
+     * values are summed in the write-behind {@link DayMetricsBuffer} first, otherwise every
+     * article goes through {@link DayMetricsWriter} on its own.
      */
-    public void processDayJson(ObjectNode dayJson) {
-        String date = standardizeDate(dayJson.path("date").asText());
+    public void processDayJson(ObjectNode dayJson, String source) {
+        Optional<Instant> date = parseDate(dayJson.path("date").asText());
 
         if (date.isEmpty()) {
             System.out.println("Day JSON missing required date field. Skipping.");
             return;
         }
 
-        Optional<Day> existingDay = dayRepository.findByDate(date);
-
-        if (existingDay.isPresent()) {
-            // Update existing day by adding values
-            Day day = existingDay.get();
-
-            // Update state driven messaging
-            if (dayJson.has("state_driven_messaging") && !dayJson.path("state_driven_messaging").isNull()) {
-                Integer currentValue = day.getStateDrivenMessaging();
-                if (currentValue == null) {
-                    currentValue = 0;
-                }
-                day.setStateDrivenMessaging(currentValue + dayJson.path("state_driven_messaging").asInt());
-            }
-
-            // Update pro student messaging
-            if (dayJson.has("pro_student_messaging") && !dayJson.path("pro_student_messaging").isNull()) {
-                Integer currentValue = day.getProStudentMessaging();
-                if (currentValue == null) {
-                    currentValue = 0;
-                }
-                day.setProStudentMessaging(currentValue + dayJson.path("pro_student_messaging").asInt());
-            }
-
-            // Update student mentions
-            if (dayJson.has("student_mentions")) {
-                ObjectNode mentionsNode = (ObjectNode) dayJson.path("student_mentions");
-
-                if (day.getStudentMentions() == null) {
-                    day.setStudentMentions(new Day.StudentMentions());
-                }
-
-                Day.StudentMentions mentions = day.getStudentMentions();
-
-                if (mentionsNode.has("good_count") && !mentionsNode.path("good_count").isNull()) {
-                    Integer currentValue = mentions.getGoodCount();
-                    if (currentValue == null) {
-                        currentValue = 0;
-                    }
-                    mentions.setGoodCount(currentValue + mentionsNode.path("good_count").asInt());
-                }
-
-                if (mentionsNode.has("bad_count") && !mentionsNode.path("bad_count").isNull()) {
-                    Integer currentValue = mentions.getBadCount();
-                    if (currentValue == null) {
-                        currentValue = 0;
-                    }
-                    mentions.setBadCount(currentValue + mentionsNode.path("bad_count").asInt());
-                }
-            }
-
-            // Update state mentions
-            if (dayJson.has("state_mentions")) {
-                ObjectNode mentionsNode = (ObjectNode) dayJson.path("state_mentions");
-
-                if (day.getStateMentions() == null) {
-                    day.setStateMentions(new Day.StateMentions());
-                }
-
-                Day.StateMentions mentions = day.getStateMentions();
-
-                if (mentionsNode.has("good_count") && !mentionsNode.path("good_count").isNull()) {
-                    Integer currentValue = mentions.getGoodCount();
-                    if (currentValue == null) {
-                        currentValue = 0;
-                    }
-                    mentions.setGoodCount(currentValue + mentionsNode.path("good_count").asInt());
-                }
-
-                if (mentionsNode.has("bad_count") && !mentionsNode.path("bad_count").isNull()) {
-                    Integer currentValue = mentions.getBadCount();
-                    if (currentValue == null) {
-                        currentValue = 0;
-                    }
-                    mentions.setBadCount(currentValue + mentionsNode.path("bad_count").asInt());
-                }
-            }
-
-            // Update propaganda count
-            if (dayJson.has("propaganda_count") && !dayJson.path("propaganda_count").isNull()) {
-                Integer currentValue = day.getPropagandaCount();
-                if (currentValue == null) {
-                    currentValue = 0;
-                }
-                day.setPropagandaCount(currentValue + dayJson.path("propaganda_count").asInt());
-            }
-
-            // Update pro protest count
-            if (dayJson.has("pro_protest_count") && !dayJson.path("pro_protest_count").isNull()) {
-                Integer currentValue = day.getProProtestCount();
-                if (currentValue == null) {
-                    currentValue = 0;
-                }
-                day.setProProtestCount(currentValue + dayJson.path("pro_protest_count").asInt());
-            }
-
-            dayRepository.save(day);
-        } else {
-            // Create new day
-            Day day = new Day();
-            day.setDate(date);
-
-            // Set state driven messaging
-            if (dayJson.has("state_driven_messaging") && !dayJson.path("state_driven_messaging").isNull()) {
-                day.setStateDrivenMessaging(dayJson.path("state_driven_messaging").asInt());
-            }
-
-            // Set pro student messaging
-            if (dayJson.has("pro_student_messaging") && !dayJson.path("pro_student_messaging").isNull()) {
-                day.setProStudentMessaging(dayJson.path("pro_student_messaging").asInt());
-            }
-
-            // Set student mentions
-            if (dayJson.has("student_mentions")) {
-                ObjectNode mentionsNode = (ObjectNode) dayJson.path("student_mentions");
-                Day.StudentMentions mentions = new Day.StudentMentions();
-
-                if (mentionsNode.has("good_count") && !mentionsNode.path("good_count").isNull()) {
-                    mentions.setGoodCount(mentionsNode.path("good_count").asInt());
-                }
-
-                if (mentionsNode.has("bad_count") && !mentionsNode.path("bad_count").isNull()) {
-                    mentions.setBadCount(mentionsNode.path("bad_count").asInt());
-                }
-
-                day.setStudentMentions(mentions);
-            }
-
-            // Set state mentions
-            if (dayJson.has("state_mentions")) {
-                ObjectNode mentionsNode = (ObjectNode) dayJson.path("state_mentions");
-                Day.StateMentions mentions = new Day.StateMentions();
-
-                if (mentionsNode.has("good_count") && !mentionsNode.path("good_count").isNull()) {
-                    mentions.setGoodCount(mentionsNode.path("good_count").asInt());
-                }
-
-                if (mentionsNode.has("bad_count") && !mentionsNode.path("bad_count").isNull()) {
-                    mentions.setBadCount(mentionsNode.path("bad_count").asInt());
-                }
-
-                day.setStateMentions(mentions);
-            }
+        Map<String, Integer> increments = dayIncrements(dayJson);
+        if (increments.isEmpty()) {
+            return;
+        }
+        if (bufferEnabled) {
+            dayMetricsBuffer.add(date.get(), source, increments);
+            return;
+        }
 
-            // Set propaganda count
-            if (dayJson.has("propaganda_count") && !dayJson.path("propaganda_count").isNull()) {
-                day.setPropagandaCount(dayJson.path("propaganda_count").asInt());
-            }
+        dayMetricsWriter.write(date.get(), source, increments);
+    }
 
-            // Set pro protest count
-            if (dayJson.has("pro_protest_count") && !dayJson.path("pro_protest_count").isNull()) {
-                day.setProProtestCount(dayJson.path("pro_protest_count").asInt());
-            }
+    /**
+     * Day fields to increment, one entry per non-null value in the JSON.
+     */
+    static Map<String, Integer> dayIncrements(ObjectNode dayJson) {
+        Map<String, Integer> increments = new LinkedHashMap<>();
+        incrementIfPresent(increments, "stateDrivenMessaging", dayJson.path("state_driven_messaging"));
+        incrementIfPresent(increments, "proStudentMessaging", dayJson.path("pro_student_messaging"));
+        incrementIfPresent(increments, "studentMentions.goodCount", dayJson.path("student_mentions").path("good_count"));
+        incrementIfPresent(increments, "studentMentions.badCount", dayJson.path("student_mentions").path("bad_count"));
+        incrementIfPresent(increments, "stateMentions.goodCount", dayJson.path("state_mentions").path("good_count"));
+        incrementIfPresent(increments, "stateMentions.badCount", dayJson.path("state_mentions").path("bad_count"));
+        incrementIfPresent(increments, "propagandaCount", dayJson.path("propaganda_count"));
+        incrementIfPresent(increments, "proProtestCount", dayJson.path("pro_protest_count"));
+        return increments;
+    }
 
-            dayRepository.save(day);
+    private static void incrementIfPresent(Map<String, Integer> increments, String field, JsonNode value) {
+        if (!value.isMissingNode() && !value.isNull()) {
+            increments.put(field, value.asInt());
         }
     }
 
     /**
-     * Standardizes date format to YYYY-MM-DD HH:MM:SS
-     * Handles input formats like DD.MM.YYYY or D.M.YYYY (with or without trailing dot)
+     * Parses the dates the analysis produces into midnight UTC of that day.
+     * Handles YYYY-MM-DD, the YYYY-MM-DD HH:MM:SS form dates used to be stored in, and
+     * DD.MM.YYYY or D.M.YYYY (with or without trailing dot). Anything else is empty.
      */
-    private String standardizeDate(String dateString) {
-        // If the date is already in YYYY-MM-DD format, return it as is
-        if (dateString.matches("\\d{4}-\\d{2}-\\d{2}")) {
-            return dateString + " 00:00:00";
-        }
-
-        // Check if it's in DD.MM.YYYY format
-        // The pattern allows for optional trailing dot and single-digit day/month
-        if (dateString.matches("\\d{1,2}\\.\\d{1,2}\\.\\d{4}\\.?")) {
-            // Remove trailing dot if present
-            if (dateString.endsWith(".")) {
-                dateString = dateString.substring(0, dateString.length() - 1);
+    static Optional<Instant> parseDate(String dateString) {
+        String trimmed = dateString.trim();
+        try {
+            if (trimmed.matches("\\d{4}-\\d{2}-\\d{2}( \\d{2}:\\d{2}:\\d{2})?")) {
+                return Optional.of(LocalDate.parse(trimmed.substring(0, 10)).atStartOfDay(ZoneOffset.UTC).toInstant());
             }
 
-            // Split by dots
-            String[] parts = dateString.split("\\.");
-            if (parts.length == 3) {
-                // Ensure day and month have two digits
-                String day = parts[0].length() == 1 ? "0" + parts[0] : parts[0];
-                String month = parts[1].length() == 1 ? "0" + parts[1] : parts[1];
-                String year = parts[2];
-
-                // Return in YYYY-MM-DD format
-                return year + "-" + month + "-" + day + " 00:00:00";
+            // The pattern allows for optional trailing dot and single-digit day/month
+            if (trimmed.matches("\\d{1,2}\\.\\d{1,2}\\.\\d{4}\\.?")) {
+                String[] parts = trimmed.split("\\.");
+                LocalDate date = LocalDate.of(Integer.parseInt(parts[2]), Integer.parseInt(parts[1]), Integer.parseInt(parts[0]));
+                return Optional.of(date.atStartOfDay(ZoneOffset.UTC).toInstant());
             }
+        } catch (DateTimeException e) {
+            // Matches the format but isn't a real date, e.g. 31.2.2025
         }
 
-        // If format is unknown, return original string
-        System.out.println("Warning: Could not standardize date format for: " + dateString);
-        return dateString;
+        if (!trimmed.isEmpty()) {
+            System.out.println("Warning: Could not parse date: " + dateString);
+        }
+        return Optional.empty();
     }
-}
\ No newline at end of file
+}
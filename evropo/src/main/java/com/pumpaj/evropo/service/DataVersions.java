@@ -0,0 +1,33 @@
+package com.pumpaj.evropo.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts writes per entity so read endpoints can tell whether anything changed without
+ * querying MongoDB. Every write path bumps the entity it touched. The counters live in
+ * memory, so the ETags carry the startup time and all change on a restart; writes from
+ * anything other than this instance aren't seen.
+ */
+@Service
+public class DataVersions {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Class<?>, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public void bump(Class<?> entity) {
+        versions.computeIfAbsent(entity, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Strong ETag of everything read from the entity's collections. Read it before querying,
+     * so a write racing the query makes the next request miss instead of serving stale data.
+     */
+    public String etag(Class<?> entity) {
+        long version = versions.computeIfAbsent(entity, key -> new AtomicLong()).get();
+        return "\"" + entity.getSimpleName().toLowerCase() + "-" + epoch + "-" + version + "\"";
+    }
+}
@@ -0,0 +1,301 @@
+package com.pumpaj.evropo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pumpaj.evropo.service.DayMetricsWriter.DayKey;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Write-behind buffer for day metrics. Increments from many analyses land in per-day, per-source,
+ * per-field {@link LongAdder} cells and reach MongoDB through {@link DayMetricsWriter} as one insert
+ * of summed measurements plus one bulk upsert per rollup, every days.buffer.flush-interval-ms or
+ * as soon as days.buffer.max-pending increments are waiting.
+ * <p>
+ * Every increment is appended to a write-ahead log segment first. Flushing rotates the segment,
+ * and a segment is only deleted after all of its writes succeeded; segments left behind by a crash
+ * are replayed at startup. Each segment starts with the id of its batch, which
+ * {@link DayMetricsWriter} uses to not count a batch twice when it is written again. The
+ * collections a failed flush did reach are kept in a progress file next to the segment.
+ */
+@Service
+@DependsOn("dataMigration")
+public class DayMetricsBuffer {
+
+    private static final String SEGMENT_PREFIX = "day-metrics-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final String PROGRESS_SUFFIX = ".progress";
+
+    @Autowired
+    private DayMetricsWriter dayMetricsWriter;
+
+    @Value("${days.buffer.wal-path:data/day-metrics-wal}")
+    private String walPath;
+
+    @Value("${days.buffer.max-pending:500}")
+    private int maxPending;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Held shared by increments and exclusively while the cells and the segment are swapped
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private Map<DayKey, Map<String, LongAdder>> cells = new ConcurrentHashMap<>();
+    private Path directory;
+    private long segmentNumber;
+    private String segmentBatchId;
+    private BufferedWriter segment;
+
+    // Swapped out but not written yet, oldest first
+    private final Deque<Batch> unflushed = new ArrayDeque<>();
+
+    @PostConstruct
+    public void open() throws IOException {
+        directory = Path.of(walPath);
+        Files.createDirectories(directory);
+
+        List<Path> leftover;
+        try (Stream<Path> files = Files.list(directory)) {
+            leftover = files.filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted(Comparator.comparingLong(DayMetricsBuffer::segmentNumberOf))
+                    .toList();
+        }
+        for (Path file : leftover) {
+            unflushed.add(replay(file));
+            segmentNumber = Math.max(segmentNumber, segmentNumberOf(file));
+        }
+        if (!leftover.isEmpty()) {
+            System.out.println("Replaying " + leftover.size() + " day metrics log segments");
+        }
+
+        openNextSegment();
+        flush();
+    }
+
+    /**
+     * Adds the increments of one analysed article to the day and source.
+     */
+    public void add(Instant date, String source, Map<String, Integer> increments) {
+        if (increments.isEmpty()) {
+            return;
+        }
+
+        DayKey key = new DayKey(date, source);
+        swapLock.readLock().lock();
+        try {
+            appendToLog(key, increments);
+            Map<String, LongAdder> day = cells.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+            increments.forEach((field, value) -> day.computeIfAbsent(field, f -> new LongAdder()).add(value));
+        } finally {
+            swapLock.readLock().unlock();
+        }
+
+        // Whoever crosses the threshold flushes, unless a flush is already running
+        if (pending.incrementAndGet() >= maxPending && flushLock.tryLock()) {
+            try {
+                flushLocked();
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${days.buffer.flush-interval-ms:5000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        flush();
+        swapLock.writeLock().lock();
+        try {
+            segment.close();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    private void flushLocked() {
+        swapLock.writeLock().lock();
+        try {
+            if (pending.get() > 0) {
+                segment.close();
+                unflushed.add(new Batch(segmentPath(segmentNumber), segmentBatchId, sum(cells)));
+                cells = new ConcurrentHashMap<>();
+                pending.set(0);
+                openNextSegment();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not rotate the day metrics log", e);
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+
+        // Increments keep flowing into the new cells while the old ones are written
+        while (!unflushed.isEmpty()) {
+            Batch batch = unflushed.peek();
+            try {
+                dayMetricsWriter.write(batch.id, batch.increments, batch.written);
+                // Progress first, a later segment with the same number must not inherit it
+                Files.deleteIfExists(progressPath(batch.segment));
+                Files.deleteIfExists(batch.segment);
+                unflushed.poll();
+            } catch (Exception e) {
+                System.err.println("Could not flush day metrics, will retry: " + e.getMessage());
+                saveProgress(batch);
+                return;
+            }
+        }
+    }
+
+    private void appendToLog(DayKey key, Map<String, Integer> increments) {
+        try {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("date", key.getDate().toString());
+            entry.put("source", key.getSource());
+            entry.put("inc", increments);
+            String line = objectMapper.writeValueAsString(entry);
+            synchronized (this) {
+                segment.write(line);
+                segment.newLine();
+                // Into the OS page cache, so the entry survives the JVM crashing
+                segment.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to the day metrics log", e);
+        }
+    }
+
+    // Lets a replay skip the collections the batch reached before, the batch id alone would do but costs a query each
+    private void saveProgress(Batch batch) {
+        try {
+            Files.write(progressPath(batch.segment), batch.written, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("Could not save the progress of " + batch.segment.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    private Batch replay(Path file) throws IOException {
+        byte[] content = Files.readAllBytes(file);
+        // Segments written before batch ids get one derived from their content, so it is the same on every replay
+        String batchId = UUID.nameUUIDFromBytes(content).toString();
+        Map<DayKey, Map<String, Long>> increments = new HashMap<>();
+        for (String line : new String(content, StandardCharsets.UTF_8).split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                LogEntry entry = objectMapper.readValue(line, LogEntry.class);
+                if (entry.batch != null) {
+                    batchId = entry.batch;
+                    continue;
+                }
+                // Entries written before dates were parsed hold "YYYY-MM-DD HH:MM:SS"
+                Optional<Instant> date = entry.date.endsWith("Z")
+                        ? Optional.of(Instant.parse(entry.date))
+                        : DataProcessingService.parseDate(entry.date);
+                if (date.isEmpty()) {
+                    continue;
+                }
+                Map<String, Long> day = increments.computeIfAbsent(new DayKey(date.get(), entry.source), key -> new HashMap<>());
+                entry.inc.forEach((field, value) -> day.merge(field, value, Long::sum));
+            } catch (IOException | DateTimeException e) {
+                // The last line can be cut short by the crash
+                System.err.println("Skipping unreadable entry in " + file.getFileName() + ": " + line);
+            }
+        }
+
+        Batch batch = new Batch(file, batchId, increments);
+        Path progress = progressPath(file);
+        if (Files.exists(progress)) {
+            batch.written.addAll(Files.readAllLines(progress, StandardCharsets.UTF_8));
+        }
+        return batch;
+    }
+
+    private static Map<DayKey, Map<String, Long>> sum(Map<DayKey, Map<String, LongAdder>> cells) {
+        Map<DayKey, Map<String, Long>> increments = new HashMap<>();
+        cells.forEach((key, fields) -> {
+            Map<String, Long> day = new HashMap<>();
+            fields.forEach((field, adder) -> day.put(field, adder.sum()));
+            increments.put(key, day);
+        });
+        return increments;
+    }
+
+    private void openNextSegment() throws IOException {
+        segmentNumber++;
+        segmentBatchId = UUID.randomUUID().toString();
+        segment = Files.newBufferedWriter(segmentPath(segmentNumber), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        segment.write(objectMapper.writeValueAsString(Map.of("batch", segmentBatchId)));
+        segment.newLine();
+        segment.flush();
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(SEGMENT_PREFIX + number + SEGMENT_SUFFIX);
+    }
+
+    private static Path progressPath(Path segment) {
+        String name = segment.getFileName().toString();
+        return segment.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + PROGRESS_SUFFIX);
+    }
+
+    private static long segmentNumberOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static class Batch {
+        private final Path segment;
+        private final String id;
+        private final Map<DayKey, Map<String, Long>> increments;
+        // Collections this batch already reached, a retry skips them
+        private final Set<String> written = new HashSet<>();
+
+        Batch(Path segment, String id, Map<DayKey, Map<String, Long>> increments) {
+            this.segment = segment;
+            this.id = id;
+            this.increments = increments;
+        }
+    }
+
+    // Either the header line naming the batch or one increment
+    private static class LogEntry {
+        public String batch;
+        public String date;
+        public String source;
+        public Map<String, Long> inc;
+    }
+}
@@ -0,0 +1,197 @@
+package com.pumpaj.evropo.service;
+
+import com.pumpaj.evropo.model.Day;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * The one write path of day metrics. Summed counts become one measurement per day and source
+ * in the days time-series collection and an $inc upsert into every {@link RollupPeriod}
+ * collection, so dashboards comparing sources read a handful of rollup documents.
+ * <p>
+ * Every write carries a batch id. Measurements hold it and rollups keep the ids of their last
+ * writes, so writing a batch again, after a partial write or a crash, adds nothing twice.
+ */
+@Service
+public class DayMetricsWriter {
+
+    /**
+     * Every count a day has, nested ones as field paths.
+     */
+    static final List<String> FIELDS = List.of(
+            "stateDrivenMessaging", "proStudentMessaging",
+            "studentMentions.goodCount", "studentMentions.badCount",
+            "stateMentions.goodCount", "stateMentions.badCount",
+            "propagandaCount", "proProtestCount");
+
+    // Batch ids a rollup remembers, far more than can be waiting for a retry
+    static final int KEPT_BATCH_IDS = 100;
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private DataVersions dataVersions;
+
+    public void write(Instant date, String source, Map<String, ? extends Number> counts) {
+        Map<DayKey, Map<String, ? extends Number>> day = new HashMap<>();
+        day.put(new DayKey(date, source), counts);
+        write(UUID.randomUUID().toString(), day, new HashSet<>());
+    }
+
+    /**
+     * Writes the days measurements and then each rollup. Collections named in written are
+     * skipped and every collection written is added to it, which saves a retry the work. What
+     * doesn't count twice is decided by the batch id: retry with the same one.
+     */
+    public void write(String batchId, Map<DayKey, ? extends Map<String, ? extends Number>> counts, Set<String> written) {
+        if (counts.isEmpty()) {
+            return;
+        }
+
+        String days = mongoTemplate.getCollectionName(Day.class);
+        try {
+            if (!written.contains(days)) {
+                writeMeasurements(days, batchId, counts);
+                written.add(days);
+            }
+
+            for (RollupPeriod period : RollupPeriod.values()) {
+                if (!written.contains(period.getCollection())) {
+                    writeRollup(period, batchId, counts);
+                    written.add(period.getCollection());
+                }
+            }
+        } finally {
+            // Also after a partial write, what did get written is visible to readers
+            dataVersions.bump(Day.class);
+        }
+    }
+
+    // Only the days the batch hasn't reached yet, an insert that failed half way may have written some
+    private void writeMeasurements(String days, String batchId, Map<DayKey, ? extends Map<String, ? extends Number>> counts) {
+        Instant from = counts.keySet().stream().map(DayKey::getDate).min(Comparator.naturalOrder()).orElseThrow();
+        Instant to = counts.keySet().stream().map(DayKey::getDate).max(Comparator.naturalOrder()).orElseThrow();
+        Query query = Query.query(Criteria.where("date").gte(Date.from(from)).lte(Date.from(to)).and("batch").is(batchId));
+        query.fields().include("date", "source");
+
+        Set<DayKey> present = new HashSet<>();
+        for (Document measurement : mongoTemplate.find(query, Document.class, days)) {
+            present.add(new DayKey(measurement.getDate("date").toInstant(), measurement.getString("source")));
+        }
+
+        List<Document> measurements = new ArrayList<>();
+        counts.forEach((key, fields) -> {
+            if (!present.contains(key)) {
+                measurements.add(measurement(key.getDate(), key.getSource(), fields).append("batch", batchId));
+            }
+        });
+        if (!measurements.isEmpty()) {
+            mongoTemplate.insert(measurements, days);
+        }
+    }
+
+    private void writeRollup(RollupPeriod period, String batchId, Map<DayKey, ? extends Map<String, ? extends Number>> counts) {
+        // Days of the same period and source collapse into one upsert
+        Map<DayKey, Map<String, Long>> rollup = new HashMap<>();
+        counts.forEach((key, fields) -> {
+            Map<String, Long> sums = rollup.computeIfAbsent(
+                    new DayKey(period.startOf(key.getDate()), key.getSource()), k -> new HashMap<>());
+            fields.forEach((field, value) -> sums.merge(field, value.longValue(), Long::sum));
+        });
+
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, period.getCollection());
+        List<DayKey> keys = new ArrayList<>();
+        rollup.forEach((key, fields) -> {
+            Update update = new Update();
+            fields.forEach((field, value) -> update.inc(field, value));
+            update.push("batches").slice(-KEPT_BATCH_IDS).each(batchId);
+            operations.upsert(Query.query(rollupCriteria(key).and("batches").ne(batchId)), update);
+            keys.add(key);
+        });
+
+        try {
+            operations.execute();
+        } catch (BulkOperationException e) {
+            // A rollup that already has the batch doesn't match, so its upsert runs into the unique index
+            for (BulkWriteError error : e.getErrors()) {
+                Query applied = Query.query(rollupCriteria(keys.get(error.getIndex())).and("batches").is(batchId));
+                if (error.getCode() != DUPLICATE_KEY || !mongoTemplate.exists(applied, period.getCollection())) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static Criteria rollupCriteria(DayKey key) {
+        return Criteria.where("source").is(key.getSource()).and("start").is(key.getDate());
+    }
+
+    /**
+     * A days measurement, field paths like studentMentions.goodCount become nested documents.
+     */
+    static Document measurement(Instant date, String source, Map<String, ? extends Number> fields) {
+        Document measurement = new Document("date", Date.from(date));
+        if (source != null) {
+            measurement.append("source", source);
+        }
+        fields.forEach((path, value) -> {
+            Document parent = measurement;
+            String[] parts = path.split("\\.");
+            for (int i = 0; i < parts.length - 1; i++) {
+                Object child = parent.get(parts[i]);
+                if (!(child instanceof Document)) {
+                    child = new Document();
+                    parent.put(parts[i], child);
+                }
+                parent = (Document) child;
+            }
+            parent.put(parts[parts.length - 1], value);
+        });
+        return measurement;
+    }
+
+    /**
+     * A day, or the start of a rollup period, and the source it was counted for.
+     */
+    static final class DayKey {
+        private final Instant date;
+        private final String source;
+
+        DayKey(Instant date, String source) {
+            this.date = date;
+            this.source = source;
+        }
+
+        Instant getDate() {
+            return date;
+        }
+
+        String getSource() {
+            return source;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof DayKey other && date.equals(other.date) && Objects.equals(source, other.source);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(date, source);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.pumpaj.evropo.service;
+
+import com.pumpaj.evropo.model.ArticleFingerprint;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Finds articles whose text is a near-copy of one analysed before, on any source, e.g. agency
+ * copy republished by both 021.rs and informer.rs. Fingerprints live in a {@link SimHashIndex}
+ * in memory and are persisted in the article_fingerprints collection, which is loaded at startup.
+ * <p>
+ * An article only becomes a canonical others are linked to once its analysis succeeded, see
+ * {@link #finished}. While it is being analysed it is reserved, and copies of it have to wait:
+ * if its analysis is deferred or fails, a copy may become the canonical article instead.
+ */
+@Service
+public class DuplicateDetector {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Hamming distance between fingerprints up to which texts count as the same article
+    @Value("${dedup.max-distance:3}")
+    private int maxDistance;
+
+    // Shorter texts share too few shingles for a reliable fingerprint
+    @Value("${dedup.min-tokens:40}")
+    private int minTokens;
+
+    // A reservation nobody finished, e.g. of a batch that was never run, stops blocking copies after this
+    private static final Duration RESERVATION_TIMEOUT = Duration.ofHours(1);
+
+    private final SimHashIndex index = new SimHashIndex();
+    private final Map<String, SimHashIndex.Entry> entriesByUrl = new HashMap<>();
+    // Articles being analysed, by URL
+    private final Map<String, Reservation> reservations = new HashMap<>();
+
+    @PostConstruct
+    public synchronized void load() {
+        if (maxDistance > SimHashIndex.MAX_GUARANTEED_DISTANCE) {
+            throw new IllegalStateException("dedup.max-distance can be at most " + SimHashIndex.MAX_GUARANTEED_DISTANCE);
+        }
+
+        try (Stream<ArticleFingerprint> fingerprints = mongoTemplate.stream(new Query(), ArticleFingerprint.class)) {
+            fingerprints.forEach(fingerprint -> register(new SimHashIndex.Entry(
+                    fingerprint.getId(), fingerprint.getFingerprint(), fingerprint.getCanonicalUrl())));
+        }
+        System.out.println("Loaded " + index.size() + " article fingerprints");
+    }
+
+    /**
+     * Returns the URL of the canonical article if this text near-duplicates one analysed before,
+     * and links the article to it. Throws if it copies an article still being analysed. Otherwise
+     * the article is reserved until {@link #finished} and empty is returned.
+     */
+    public synchronized Optional<String> findCanonical(String url, String source, String articleText)
+            throws AnalysisPendingException {
+        SimHashIndex.Entry known = entriesByUrl.get(url);
+        if (known != null) {
+            return canonicalOf(known);
+        }
+
+        List<String> tokens = SimHash.tokenize(articleText);
+        if (tokens.size() < minTokens) {
+            return Optional.empty();
+        }
+
+        long fingerprint = SimHash.fingerprint(tokens);
+        Optional<String> canonicalUrl = index.findNearest(fingerprint, maxDistance, url)
+                .map(SimHashIndex.Entry::getCanonicalUrl);
+        if (canonicalUrl.isPresent()) {
+            save(new SimHashIndex.Entry(url, fingerprint, canonicalUrl.get()), source);
+            return canonicalUrl;
+        }
+
+        Instant now = Instant.now();
+        reservations.values().removeIf(reservation -> reservation.reservedAt.plus(RESERVATION_TIMEOUT).isBefore(now));
+        for (Reservation reservation : reservations.values()) {
+            if (!reservation.url.equals(url) && SimHash.distance(fingerprint, reservation.fingerprint) <= maxDistance) {
+                throw new AnalysisPendingException(url + " copies " + reservation.url + ", which is still being analysed");
+            }
+        }
+        reservations.put(url, new Reservation(url, source, fingerprint, now));
+        return Optional.empty();
+    }
+
+    /**
+     * Ends the reservation of an article. Only an analysed article becomes canonical, copies of one
+     * whose analysis was deferred or failed are analysed themselves.
+     */
+    public synchronized void finished(String url, boolean analysed) {
+        Reservation reservation = reservations.remove(url);
+        if (reservation != null && analysed) {
+            save(new SimHashIndex.Entry(url, reservation.fingerprint, url), reservation.source);
+        }
+    }
+
+    private void save(SimHashIndex.Entry entry, String source) {
+        register(entry);
+        mongoTemplate.save(new ArticleFingerprint(entry.getUrl(), source, entry.getFingerprint(), entry.getCanonicalUrl()));
+    }
+
+    private void register(SimHashIndex.Entry entry) {
+        if (entriesByUrl.putIfAbsent(entry.getUrl(), entry) == null) {
+            index.add(entry);
+        }
+    }
+
+    private Optional<String> canonicalOf(SimHashIndex.Entry entry) {
+        return entry.getCanonicalUrl().equals(entry.getUrl()) ? Optional.empty() : Optional.of(entry.getCanonicalUrl());
+    }
+
+    private static final class Reservation {
+        private final String url;
+        private final String source;
+        private final long fingerprint;
+        private final Instant reservedAt;
+
+        Reservation(String url, String source, long fingerprint, Instant reservedAt) {
+            this.url = url;
+            this.source = source;
+            this.fingerprint = fingerprint;
+            this.reservedAt = reservedAt;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.pumpaj.evropo.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the settlement a protest location names. Places come from gazetteer.location, either the
+ * compact places.tsv format or a GeoNames country dump, and are indexed twice:
+ * <ul>
+ *     <li>by key: Latin script, no diacritics and Serbian case endings stripped from every word,
+ *     so "Beogradu", "Београд" and "beograd" share one key and "Novom Sadu" finds Novi Sad;</li>
+ *     <li>by the deletes of every key up to its edit distance budget, SymSpell style, so "Kragujevcu"
+ *     or a typo still finds the place.</li>
+ * </ul>
+ * Both are hash lookups, so a lookup costs about the same for two hundred places as for twenty
+ * thousand. Names with extra words ("ETF Beograd") fall back to ever shorter runs of their words.
+ */
+@Service
+public class Gazetteer {
+
+    private static final Pattern WORDS = Pattern.compile("[\\p{L}\\p{N}]+");
+    // Longest first, so "ima" is stripped rather than just its "a"
+    private static final List<String> CASE_ENDINGS = List.of(
+            "ima", "ama", "om", "em", "og", "eg", "oj", "u", "a", "e", "i", "o");
+    private static final int MIN_STEM = 3;
+    private static final int MAX_DISTANCE = 2;
+    private static final int MAX_WORDS = 12;
+    private static final int MAX_NAME_WORDS = 4;
+    // Columns of a GeoNames dump line, see https://download.geonames.org/export/dump/readme.txt
+    private static final int GEONAMES_COLUMNS = 19;
+
+    @Value("${gazetteer.location:classpath:gazetteer/places.tsv}")
+    private Resource location;
+
+    private final Map<String, Place> byKey = new HashMap<>();
+    private final Map<String, Set<String>> keysByDelete = new HashMap<>();
+
+    @PostConstruct
+    public void load() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(location.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    parse(line, entries);
+                }
+            }
+        }
+
+        // Bigger places win keys they share with smaller ones, the file order breaks ties
+        entries.sort(Comparator.comparingLong((Entry entry) -> -entry.population));
+        for (int rank = 0; rank < entries.size(); rank++) {
+            Entry entry = entries.get(rank);
+            String id = entry.id != null ? entry.id : key(entry.names.get(0));
+            Place place = new Place(id, entry.names.get(0), entry.latitude, entry.longitude, rank);
+            for (String name : entry.names) {
+                index(key(name), place);
+            }
+        }
+        System.out.println("Loaded " + entries.size() + " places into the gazetteer from " + location.getDescription());
+    }
+
+    /**
+     * The place a location names, trying exact keys before fuzzy ones and longer runs of words
+     * before shorter ones.
+     */
+    public Optional<Place> find(String location) {
+        List<String> words = words(location);
+
+        for (int size = Math.min(words.size(), MAX_NAME_WORDS); size > 0; size--) {
+            List<String> runs = new ArrayList<>();
+            for (int start = 0; start + size <= words.size(); start++) {
+                runs.add(String.join(" ", words.subList(start, start + size)));
+            }
+
+            for (String run : runs) {
+                Place place = byKey.get(run);
+                if (place != null) {
+                    return Optional.of(place);
+                }
+            }
+
+            Place best = null;
+            int bestDistance = Integer.MAX_VALUE;
+            for (String run : runs) {
+                for (Map.Entry<String, Integer> candidate : candidates(run).entrySet()) {
+                    int distance = candidate.getValue();
+                    Place place = byKey.get(candidate.getKey());
+                    if (distance < bestDistance || distance == bestDistance && place.rank < best.rank) {
+                        best = place;
+                        bestDistance = distance;
+                    }
+                }
+            }
+            if (best != null) {
+                return Optional.of(best);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private void parse(String line, List<Entry> entries) {
+        String[] columns = line.split("\t", -1);
+        try {
+            if (columns.length >= GEONAMES_COLUMNS) {
+                // Populated places only, alternate names cover Cyrillic and foreign spellings
+                if (!"P".equals(columns[6])) {
+                    return;
+                }
+                List<String> names = new ArrayList<>(List.of(columns[1], columns[2]));
+                for (String alternate : columns[3].split(",")) {
+                    if (alternate.length() >= MIN_STEM) {
+                        names.add(alternate);
+                    }
+                }
+                long population = columns[14].isEmpty() ? 0 : Long.parseLong(columns[14]);
+                entries.add(new Entry(columns[0], names, Double.parseDouble(columns[4]), Double.parseDouble(columns[5]), population));
+            } else if (columns.length >= 3) {
+                List<String> names = new ArrayList<>(List.of(columns[0]));
+                if (columns.length > 3 && !columns[3].isBlank()) {
+                    names.addAll(List.of(columns[3].split(",")));
+                }
+                entries.add(new Entry(null, names, Double.parseDouble(columns[1]), Double.parseDouble(columns[2]), 0));
+            } else {
+                System.err.println("Skipping gazetteer line without coordinates: " + line);
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Skipping gazetteer line with unreadable numbers: " + line);
+        }
+    }
+
+    private void index(String key, Place place) {
+        if (key.isEmpty() || byKey.putIfAbsent(key, place) != null) {
+            return;
+        }
+        for (String delete : deletes(key, budget(key))) {
+            keysByDelete.computeIfAbsent(delete, k -> new HashSet<>()).add(key);
+        }
+    }
+
+    // Indexed keys within both edit distance budgets of the run, with their distance
+    private Map<String, Integer> candidates(String run) {
+        Map<String, Integer> candidates = new HashMap<>();
+        if (budget(run) == 0) {
+            return candidates;
+        }
+        for (String delete : deletes(run, MAX_DISTANCE)) {
+            for (String key : keysByDelete.getOrDefault(delete, Set.of())) {
+                if (!candidates.containsKey(key)) {
+                    candidates.put(key, distance(run, key, Math.min(budget(run), budget(key))));
+                }
+            }
+        }
+        candidates.values().removeIf(distance -> distance == Integer.MAX_VALUE);
+        return candidates;
+    }
+
+    /**
+     * Folded, stemmed words of a name: "u Novom Sadu" becomes [u, nov, sad].
+     */
+    static List<String> words(String name) {
+        List<String> words = new ArrayList<>();
+        Matcher matcher = WORDS.matcher(TextNormalizer.fold(name));
+        while (matcher.find() && words.size() < MAX_WORDS) {
+            words.add(stem(matcher.group()));
+        }
+        return words;
+    }
+
+    static String key(String name) {
+        return String.join(" ", words(name));
+    }
+
+    static String stem(String word) {
+        for (String ending : CASE_ENDINGS) {
+            if (word.endsWith(ending) && word.length() - ending.length() >= MIN_STEM) {
+                return word.substring(0, word.length() - ending.length());
+            }
+        }
+        return word;
+    }
+
+    // Short keys must match exactly, "bor" is one letter away from too many words
+    private static int budget(String key) {
+        if (key.length() <= 3) {
+            return 0;
+        }
+        return key.length() <= 7 ? 1 : MAX_DISTANCE;
+    }
+
+    private static Set<String> deletes(String key, int distance) {
+        Set<String> deletes = new HashSet<>();
+        deletes.add(key);
+        Set<String> current = Set.of(key);
+        for (int i = 0; i < distance; i++) {
+            Set<String> next = new HashSet<>();
+            for (String word : current) {
+                for (int j = 0; j < word.length(); j++) {
+                    next.add(word.substring(0, j) + word.substring(j + 1));
+                }
+            }
+            deletes.addAll(next);
+            current = next;
+        }
+        return deletes;
+    }
+
+    /**
+     * Edit distance with adjacent transpositions counted once, or MAX_VALUE above the limit.
+     */
+    static int distance(String a, String b, int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) {
+            return Integer.MAX_VALUE;
+        }
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            int rowMin = Integer.MAX_VALUE;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, d[i][j]);
+            }
+            if (rowMin > limit) {
+                return Integer.MAX_VALUE;
+            }
+        }
+        return d[a.length()][b.length()] <= limit ? d[a.length()][b.length()] : Integer.MAX_VALUE;
+    }
+
+    /**
+     * A settlement and its coordinates.
+     */
+    public static final class Place {
+        // The GeoNames id, or the key of the name for places.tsv, protests are keyed on it
+        private final String id;
+        private final String name;
+        private final double latitude;
+        private final double longitude;
+        // Larger or earlier places rank first and win fuzzy ties
+        private final int rank;
+
+        Place(String id, String name, double latitude, double longitude, int rank) {
+            this.id = id;
+            this.name = name;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.rank = rank;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+    }
+
+    // A parsed line, the first name is the one places are reported by
+    private static final class Entry {
+        private final String id;
+        private final List<String> names;
+        private final double latitude;
+        private final double longitude;
+        private final long population;
+
+        Entry(String id, List<String> names, double latitude, double longitude, long population) {
+            this.id = id;
+            this.names = names;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.population = population;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.pumpaj.evropo.service;
+
+import com.pumpaj.evropo.model.PipelineJob;
+import com.pumpaj.evropo.model.PipelineResult;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Runs pipelines as background jobs, so API requests don't wait for the scrape and the analyses.
+ * Triggers are single-flight per source: while a run of a source is queued or running, every
+ * other trigger for it joins that run instead of starting a new one. Finished jobs are kept
+ * for a bounded time so their results can still be fetched.
+ */
+@Service
+public class JobService {
+
+    @Autowired
+    private NewsPipelineService pipelineService;
+
+    @Value("${jobs.retention-minutes:60}")
+    private long retentionMinutes;
+
+    @Value("${jobs.max-retained:200}")
+    private int maxRetained;
+
+    private final Map<String, PipelineJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, PipelineJob> inFlight = new ConcurrentHashMap<>();
+
+    // At most one job per source runs at a time, so the pool never grows past the number of sources
+    private final ExecutorService executor;
+
+    public JobService() {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "job-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts a pipeline run of the source, or returns the run already in flight for it.
+     */
+    public PipelineJob trigger(NewsSource source, String trigger) {
+        PipelineJob[] created = new PipelineJob[1];
+        PipelineJob job = inFlight.compute(source.getId(), (id, existing) -> {
+            if (existing != null && !existing.isFinished()) {
+                return existing;
+            }
+            created[0] = new PipelineJob(UUID.randomUUID().toString(), id, trigger);
+            return created[0];
+        });
+
+        if (created[0] != null) {
+            jobs.put(job.getId(), job);
+            evictOverflow();
+            executor.execute(() -> run(source, job));
+        }
+        return job;
+    }
+
+    public Optional<PipelineJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * All retained jobs, newest first.
+     */
+    public List<PipelineJob> getJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(PipelineJob::getCreatedAt).reversed())
+                .collect(Collectors.toList());
+    }
+
+    private void run(NewsSource source, PipelineJob job) {
+        job.markRunning();
+
+        PipelineResult result = null;
+        Exception failure = null;
+        try {
+            result = pipelineService.run(source, new PipelineProgress() {
+                @Override
+                public void stage(String stage) {
+                    job.setStage(stage);
+                }
+
+                @Override
+                public void analysed(int completed, int total) {
+                    job.updateProgress(completed, total);
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = e;
+        } catch (Exception e) {
+            System.err.println("Pipeline job " + job.getId() + " for " + source.getId() + " failed: " + e.getMessage());
+            failure = e;
+        }
+
+        // Free the slot before completing, so a trigger by whoever waited on this job starts a new run
+        inFlight.remove(source.getId(), job);
+        if (failure == null) {
+            job.markSucceeded(result);
+        } else {
+            job.markFailed(failure);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jobs.eviction-interval-ms:60000}")
+    public void evictExpired() {
+        Instant cutoff = Instant.now().minus(retentionMinutes, ChronoUnit.MINUTES);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    private void evictOverflow() {
+        int overflow = jobs.size() - maxRetained;
+        if (overflow <= 0) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(PipelineJob::isFinished)
+                .sorted(Comparator.comparing(PipelineJob::getFinishedAt))
+                .limit(overflow)
+                .map(PipelineJob::getId)
+                .collect(Collectors.toList())
+                .forEach(jobs::remove);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,100 @@
+package com.pumpaj.evropo.service;
+
+import java.util.*;
+
+/**
+ * Aho-Corasick automaton over a fixed keyword list.
+ * Keywords and input are folded with {@link TextNormalizer}, so matching ignores case and diacritics.
+ * Like the old "\b(...)\b" regex, a keyword only matches as a whole word.
+ * The automaton is built once and scans a title in a single pass, whatever the number of keywords.
+ */
+public class KeywordMatcher {
+
+    private final Node root = new Node();
+
+    public KeywordMatcher(Collection<String> keywords) {
+        for (String keyword : keywords) {
+            String folded = TextNormalizer.fold(keyword).trim();
+            if (!folded.isEmpty()) {
+                addKeyword(folded);
+            }
+        }
+        buildFailureLinks();
+    }
+
+    /**
+     * Returns the folded keywords found in the text, in order of first appearance.
+     */
+    public List<String> findMatches(String text) {
+        String folded = TextNormalizer.fold(text);
+        Set<String> matches = new LinkedHashSet<>();
+
+        Node node = root;
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            while (node != root && !node.children.containsKey(c)) {
+                node = node.failure;
+            }
+            node = node.children.getOrDefault(c, root);
+
+            for (String keyword : node.outputs) {
+                int start = i - keyword.length() + 1;
+                if (isBoundary(folded, start - 1) && isBoundary(folded, i + 1)) {
+                    matches.add(keyword);
+                }
+            }
+        }
+
+        return new ArrayList<>(matches);
+    }
+
+    private static boolean isBoundary(String text, int index) {
+        return index < 0 || index >= text.length() || !Character.isLetterOrDigit(text.charAt(index));
+    }
+
+    private void addKeyword(String keyword) {
+        Node node = root;
+        for (char c : keyword.toCharArray()) {
+            node = node.children.computeIfAbsent(c, key -> new Node());
+        }
+        if (!node.outputs.contains(keyword)) {
+            node.outputs.add(keyword);
+        }
+    }
+
+    private void buildFailureLinks() {
+        Deque<Node> queue = new ArrayDeque<>();
+        root.failure = root;
+
+        for (Node child : root.children.values()) {
+            child.failure = root;
+            queue.add(child);
+        }
+
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+
+            for (Map.Entry<Character, Node> entry : node.children.entrySet()) {
+                char c = entry.getKey();
+                Node child = entry.getValue();
+
+                Node failure = node.failure;
+                while (failure != root && !failure.children.containsKey(c)) {
+                    failure = failure.failure;
+                }
+                Node target = failure.children.get(c);
+                child.failure = (target != null && target != child) ? target : root;
+
+                // A node also reports every keyword that ends at its failure target
+                child.outputs.addAll(child.failure.outputs);
+                queue.add(child);
+            }
+        }
+    }
+
+    private static class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private final List<String> outputs = new ArrayList<>();
+        private Node failure;
+    }
+}
@@ -0,0 +1,193 @@
+package com.pumpaj.evropo.service;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Scrapes article titles and links from news listing pages.
+ * One shared HttpClient keeps connections alive between runs and prefers HTTP/2.
+ * The ETag and Last-Modified of every page are remembered, so an unchanged page
+ * comes back as 304 and is not downloaded or parsed again.
+ */
+@Service
+public class ListingScraper {
+
+    private final ScraperProperties properties;
+    private final HttpClient httpClient;
+    private final Map<String, Validators> validators = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ListingScraper(ScraperProperties properties) {
+        this.properties = properties;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(properties.getTimeoutSeconds()))
+                .build();
+    }
+
+    /**
+     * Scrapes the listing page of the given site and collects the links into a list.
+     * Returns an empty list if the page hasn't changed since the previous scrape.
+     */
+    public List<ScrapedLink> scrape(String siteName) throws IOException, InterruptedException {
+        List<ScrapedLink> links = new ArrayList<>();
+        scrape(siteName, links::add);
+        return links;
+    }
+
+    /**
+     * Scrapes the listing page of the given site, handing every link to the sink as soon as it is parsed.
+     * Returns the number of links emitted, which is 0 if the page hasn't changed since the previous scrape.
+     */
+    public int scrape(String siteName, Consumer<ScrapedLink> sink) throws IOException, InterruptedException {
+        ScraperProperties.Site site = properties.getSites().get(siteName);
+        if (site == null) {
+            throw new IllegalArgumentException("No scraper rules configured for site: " + siteName);
+        }
+
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(URI.create(site.getUrl()))
+                .timeout(Duration.ofSeconds(properties.getTimeoutSeconds()))
+                .header("User-Agent", properties.getUserAgent())
+                .header("Accept", "text/html,application/xhtml+xml")
+                .header("Accept-Encoding", "gzip")
+                .GET();
+
+        Validators cached = validators.get(site.getUrl());
+        if (cached != null) {
+            if (cached.etag != null) {
+                requestBuilder.header("If-None-Match", cached.etag);
+            }
+            if (cached.lastModified != null) {
+                requestBuilder.header("If-Modified-Since", cached.lastModified);
+            }
+        }
+
+        HttpResponse<InputStream> response = httpClient.send(requestBuilder.build(), HttpResponse.BodyHandlers.ofInputStream());
+
+        try (InputStream body = decode(response)) {
+            if (response.statusCode() == 304) {
+                System.out.println("Listing page not modified since last scrape: " + site.getUrl());
+                return 0;
+            }
+
+            if (response.statusCode() != 200) {
+                throw new IOException("Unexpected status " + response.statusCode() + " for " + site.getUrl());
+            }
+
+            Document document = Jsoup.parse(body, null, site.getUrl());
+            int count = extractLinks(document, site, sink);
+
+            validators.put(site.getUrl(), new Validators(
+                    response.headers().firstValue("ETag").orElse(null),
+                    response.headers().firstValue("Last-Modified").orElse(null)));
+
+            System.out.println("Scraped " + count + " articles from " + site.getUrl());
+            return count;
+        }
+    }
+
+    private int extractLinks(Document document, ScraperProperties.Site site, Consumer<ScrapedLink> sink) {
+        int count = 0;
+
+        for (Element item : document.select(site.getItemSelector())) {
+            Element linkElement = item.selectFirst(site.getLinkSelector());
+            if (linkElement == null) {
+                continue;
+            }
+
+            String link = linkElement.absUrl("href");
+            if (link.isEmpty() || isExcluded(link, site)) {
+                continue;
+            }
+
+            String title = null;
+            for (String titleSelector : site.getTitleSelectors()) {
+                Element titleElement = item.selectFirst(titleSelector);
+                if (titleElement != null && !titleElement.text().isBlank()) {
+                    title = titleElement.text().trim();
+                    break;
+                }
+            }
+
+            if (title != null) {
+                sink.accept(new ScrapedLink(title, link));
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private boolean isExcluded(String link, ScraperProperties.Site site) {
+        String path;
+        try {
+            path = URI.create(link).getPath();
+        } catch (IllegalArgumentException e) {
+            // Not a link we could fetch later anyway
+            return true;
+        }
+        if (path == null) {
+            return false;
+        }
+        for (String prefix : site.getExcludedPathPrefixes()) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private InputStream decode(HttpResponse<InputStream> response) throws IOException {
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("");
+        if (encoding.equalsIgnoreCase("gzip") && response.statusCode() == 200) {
+            return new GZIPInputStream(response.body());
+        }
+        return response.body();
+    }
+
+    public static class ScrapedLink {
+        private final String title;
+        private final String link;
+
+        public ScrapedLink(String title, String link) {
+            this.title = title;
+            this.link = link;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getLink() {
+            return link;
+        }
+    }
+
+    private static class Validators {
+        private final String etag;
+        private final String lastModified;
+
+        Validators(String etag, String lastModified) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.pumpaj.evropo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Protects the LLM backend and the pipeline from each other. Every LLM call goes through
+ * {@link #call}, which applies, in this order:
+ * <ul>
+ *     <li>a circuit breaker: after a run of throttled or failed calls the circuit opens and
+ *     calls are rejected right away, until a single probe call succeeds after the cool-down;</li>
+ *     <li>an adaptive concurrency limit: halved on every 429, grown back slowly on success;</li>
+ *     <li>token buckets for requests per minute and estimated tokens per minute.</li>
+ * </ul>
+ * Rejected and throttled calls surface as {@link LlmUnavailableException}, so the article
+ * can be left for a later run instead of being lost. Workers that time out or crash count
+ * as failed calls too; any other error neither counts as a failure nor as a success.
+ */
+@Service
+public class LlmGuard {
+
+    public enum CircuitState {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    @FunctionalInterface
+    public interface LlmCall<T> {
+        T run() throws IOException, InterruptedException;
+    }
+
+    private final TokenBucket requestBucket;
+    private final TokenBucket tokenBucket;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final int maxConcurrency;
+
+    // Guards the circuit and concurrency state below
+    private final Object lock = new Object();
+    private CircuitState state = CircuitState.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+    private double concurrencyLimit;
+    private int inFlight;
+
+    public LlmGuard(@Value("${llm.rate.requests-per-minute:15}") int requestsPerMinute,
+                    @Value("${llm.rate.tokens-per-minute:1000000}") int tokensPerMinute,
+                    @Value("${llm.circuit.failure-threshold:5}") int failureThreshold,
+                    @Value("${llm.circuit.open-ms:120000}") long openMillis,
+                    @Value("${llm.concurrency.max:4}") int maxConcurrency) {
+        this.requestBucket = new TokenBucket(requestsPerMinute);
+        this.tokenBucket = new TokenBucket(tokensPerMinute);
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.maxConcurrency = maxConcurrency;
+        this.concurrencyLimit = maxConcurrency;
+    }
+
+    /**
+     * Runs one LLM call, waiting for a concurrency slot and for rate-limit budget first.
+     *
+     * @param estimatedTokens prompt and article tokens the call will use
+     * @throws LlmUnavailableException if the circuit is open or the backend throttled or failed the call
+     */
+    public <T> T call(int estimatedTokens, LlmCall<T> llmCall) throws IOException, InterruptedException {
+        boolean probe = acquireSlot();
+        boolean succeeded = false;
+        boolean failed = false;
+        boolean rateLimited = false;
+        try {
+            requestBucket.take(1);
+            tokenBucket.take(estimatedTokens);
+            T result = llmCall.run();
+            succeeded = true;
+            return result;
+        } catch (LlmUnavailableException e) {
+            failed = true;
+            rateLimited = e.isRateLimited();
+            throw e;
+        } catch (PythonWorkerPool.WorkerFailedException e) {
+            failed = true;
+            throw e;
+        } finally {
+            releaseSlot(probe, succeeded, failed, rateLimited);
+        }
+    }
+
+    /**
+     * True while calls are being rejected, so callers can skip work that would lead to an LLM call.
+     */
+    public boolean isOpen() {
+        synchronized (lock) {
+            return currentState() == CircuitState.OPEN
+                    || (state == CircuitState.HALF_OPEN && probeInFlight);
+        }
+    }
+
+    public CircuitState getState() {
+        synchronized (lock) {
+            return currentState();
+        }
+    }
+
+    public int getConcurrencyLimit() {
+        synchronized (lock) {
+            return (int) concurrencyLimit;
+        }
+    }
+
+    // True if the call is the probe of a half-open circuit
+    private boolean acquireSlot() throws InterruptedException, LlmUnavailableException {
+        synchronized (lock) {
+            while (true) {
+                CircuitState current = currentState();
+                if (current == CircuitState.OPEN || (current == CircuitState.HALF_OPEN && probeInFlight)) {
+                    throw new LlmUnavailableException("LLM circuit is open", false);
+                }
+                if (inFlight < Math.max(1, (int) concurrencyLimit)) {
+                    break;
+                }
+                lock.wait(100);
+            }
+
+            inFlight++;
+            if (state == CircuitState.HALF_OPEN) {
+                probeInFlight = true;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    // A call that neither succeeded nor failed, e.g. interrupted, leaves the circuit as it is
+    private void releaseSlot(boolean probe, boolean succeeded, boolean failed, boolean rateLimited) {
+        synchronized (lock) {
+            inFlight--;
+            if (probe) {
+                probeInFlight = false;
+            } else if (currentState() == CircuitState.HALF_OPEN) {
+                // Started before the circuit opened, only the probe decides how a half-open circuit goes on
+                lock.notifyAll();
+                return;
+            }
+
+            if (succeeded) {
+                consecutiveFailures = 0;
+                if (state == CircuitState.HALF_OPEN) {
+                    state = CircuitState.CLOSED;
+                }
+                // Additive increase: about one more slot per limit's worth of successful calls
+                concurrencyLimit = Math.min(maxConcurrency, concurrencyLimit + 1.0 / concurrencyLimit);
+            } else if (failed) {
+                consecutiveFailures++;
+                if (rateLimited) {
+                    // Multiplicative decrease on every 429
+                    concurrencyLimit = Math.max(1, concurrencyLimit / 2);
+                }
+                if (state == CircuitState.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+                    if (state != CircuitState.OPEN) {
+                        System.err.println("LLM circuit opened after " + consecutiveFailures + " failed calls");
+                    }
+                    state = CircuitState.OPEN;
+                    openedAt = System.nanoTime();
+                }
+            }
+            lock.notifyAll();
+        }
+    }
+
+    // Moves an open circuit to half-open once the cool-down has passed, callers hold the lock
+    private CircuitState currentState() {
+        if (state == CircuitState.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = CircuitState.HALF_OPEN;
+            probeInFlight = false;
+        }
+        return state;
+    }
+
+    /**
+     * Refills continuously at capacity per minute. Takes never fail: a take beyond the
+     * available tokens puts the bucket in debt and sleeps until the debt is paid off.
+     */
+    private static class TokenBucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        TokenBucket(int perMinute) {
+            this.capacity = perMinute;
+            this.tokensPerNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+            this.tokens = perMinute;
+        }
+
+        void take(int amount) throws InterruptedException {
+            long waitNanos = reserve(Math.min(amount, capacity));
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+
+        private synchronized long reserve(double amount) {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+
+            tokens -= amount;
+            return tokens >= 0 ? 0 : (long) (-tokens / tokensPerNano);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.pumpaj.evropo.service;
+
+import java.io.IOException;
+
+/**
+ * The LLM backend throttled the request or could not serve it. Articles that hit this
+ * are not failed, they are left for a later run.
+ */
+public class LlmUnavailableException extends IOException {
+
+    private final boolean rateLimited;
+
+    public LlmUnavailableException(String message, boolean rateLimited) {
+        super(message);
+        this.rateLimited = rateLimited;
+    }
+
+    /**
+     * True for quota errors (HTTP 429), false for outages and for an open circuit.
+     */
+    public boolean isRateLimited() {
+        return rateLimited;
+    }
+}
@@ -0,0 +1,226 @@
+package com.pumpaj.evropo.service;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+import com.pumpaj.evropo.model.MarkVisitedResult;
+import com.pumpaj.evropo.model.NewsArticle;
+import com.pumpaj.evropo.model.PipelineResult;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * The scrape, store, filter and analyse pipeline, shared by every registered news source.
+ * Runs of different sources are independent, two runs of the same source never overlap.
+ */
+@Service
+public class NewsPipelineService {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private AnalysisDispatcher analysisDispatcher;
+
+    @Autowired
+    private ListingScraper listingScraper;
+
+    @Autowired
+    private ArticleSearchIndex searchIndex;
+
+    @Value("${analysis.max-attempts:3}")
+    private int maxAnalysisAttempts;
+
+    // Held for the whole run, so two runs of one source never overlap even outside the job service
+    private final Map<String, ReentrantLock> sourceLocks = new ConcurrentHashMap<>();
+
+    // Compiled once per source, titles are tagged with it as they are ingested
+    private final Map<String, KeywordMatcher> keywordMatchers = new ConcurrentHashMap<>();
+
+    /**
+     * Runs the pipeline of one source, waiting for a run already in progress to finish first.
+     */
+    public PipelineResult run(NewsSource source, PipelineProgress progress) throws InterruptedException {
+        ReentrantLock lock = sourceLocks.computeIfAbsent(source.getId(), id -> new ReentrantLock());
+        lock.lockInterruptibly();
+        try {
+            progress.stage("scraping");
+            int newArticles = scrapeAndSaveLinks(source);
+            tagUntaggedArticles(source);
+            List<NewsArticle> viableLinks = findUnvisitedWithKeywords(source);
+
+            progress.stage("analysing");
+            List<String> urls = viableLinks.stream()
+                    .map(NewsArticle::getUrl)
+                    .collect(Collectors.toList());
+            AnalysisReport report = analysisDispatcher.analyseAll(urls, source, progress);
+            recordOutcomes(source, report);
+
+            return new PipelineResult(source.getId(), newArticles, report.getAnalysed().size(),
+                    report.getFailed().size(), report.getDeferred().size(), viableLinks);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Scrapes the listing page and upserts every link in one unordered bulk write keyed on url.
+     * New links are inserted with $setOnInsert, existing ones only get their title updated if it changed.
+     * Returns the number of links that weren't stored before.
+     */
+    private int scrapeAndSaveLinks(NewsSource source) {
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, NewsArticle.class, source.getCollectionName());
+
+        try {
+            int scraped = listingScraper.scrape(source.getScraperSite(), link -> {
+                queueLinkUpsert(bulkOperations, source, link);
+                searchIndex.indexTitle(link.getLink(), source.getSourceTag(), link.getTitle());
+            });
+
+            if (scraped > 0) {
+                BulkWriteResult result = bulkOperations.execute();
+                System.out.println("Saved scraped " + source.getSourceTag() + " links: " + result.getUpserts().size() + " new, " + result.getModifiedCount() + " retitled");
+                return result.getUpserts().size();
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Handle or rethrow the exception as appropriate for your application
+            // For now, just printing stack trace, but proper error handling is needed
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    private void queueLinkUpsert(BulkOperations bulkOperations, NewsSource source, ListingScraper.ScrapedLink link) {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> matchedKeywords = keywordMatcher(source).findMatches(link.getTitle());
+
+        bulkOperations.upsert(
+                Query.query(Criteria.where("url").is(link.getLink())),
+                new Update()
+                        .setOnInsert("title", link.getTitle())
+                        .setOnInsert("visited", false)
+                        .setOnInsert("matchedKeywords", matchedKeywords)
+                        .setOnInsert("relevant", !matchedKeywords.isEmpty())
+                        .setOnInsert("createdAt", now)
+                        .setOnInsert("lastUpdated", now)
+                        .setOnInsert("sourceWebsite", source.getSourceTag()));
+
+        // Only matches an existing article whose title was edited on the site
+        bulkOperations.updateOne(
+                Query.query(Criteria.where("url").is(link.getLink()).and("title").ne(link.getTitle())),
+                new Update()
+                        .set("title", link.getTitle())
+                        .set("matchedKeywords", matchedKeywords)
+                        .set("relevant", !matchedKeywords.isEmpty()));
+    }
+
+    /**
+     * Analysed articles are marked visited. Failed ones stay in the queue until they have failed
+     * analysis.max-attempts times, deferred ones (LLM throttled or down) stay without counting an attempt.
+     */
+    private void recordOutcomes(NewsSource source, AnalysisReport report) {
+        if (!report.getAnalysed().isEmpty()) {
+            markAsVisited(source, Criteria.where("url").in(report.getAnalysed()));
+        }
+
+        if (!report.getFailed().isEmpty()) {
+            mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("url").in(report.getFailed())),
+                    new Update().inc("analysisAttempts", 1),
+                    NewsArticle.class, source.getCollectionName());
+            MarkVisitedResult givenUp = markAsVisited(source, Criteria.where("url").in(report.getFailed())
+                    .and("analysisAttempts").gte(maxAnalysisAttempts));
+            if (givenUp.getModified() > 0) {
+                System.err.println("Gave up on " + givenUp.getModified() + " " + source.getSourceTag()
+                        + " articles after " + maxAnalysisAttempts + " failed analyses");
+            }
+        }
+    }
+
+    /**
+     * Tags unvisited articles stored before keyword tagging existed, so the viable-link query sees them.
+     */
+    private void tagUntaggedArticles(NewsSource source) {
+        Query query = new Query(new Criteria().andOperator(
+                Criteria.where("visited").is(false),
+                Criteria.where("relevant").exists(false)));
+        query.fields().include("title");
+
+        List<NewsArticle> untagged = mongoTemplate.find(query, NewsArticle.class, source.getCollectionName());
+        if (untagged.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, NewsArticle.class, source.getCollectionName());
+        for (NewsArticle article : untagged) {
+            List<String> matchedKeywords = keywordMatcher(source).findMatches(article.getTitle());
+            bulkOperations.updateOne(
+                    Query.query(Criteria.where("_id").is(article.getId())),
+                    new Update()
+                            .set("matchedKeywords", matchedKeywords)
+                            .set("relevant", !matchedKeywords.isEmpty()));
+        }
+        bulkOperations.execute();
+    }
+
+    /**
+     * Unvisited articles whose title matched a keyword at ingest time.
+     * Served by the partial {visited, relevant} index instead of a regex scan over every title.
+     */
+    private List<NewsArticle> findUnvisitedWithKeywords(NewsSource source) {
+        Criteria criteria = new Criteria().andOperator(
+                Criteria.where("visited").is(false),
+                Criteria.where("relevant").is(true)
+        );
+
+        Query query = new Query(criteria);
+        return mongoTemplate.find(query, NewsArticle.class, source.getCollectionName());
+    }
+
+    private KeywordMatcher keywordMatcher(NewsSource source) {
+        return keywordMatchers.computeIfAbsent(source.getId(), id -> new KeywordMatcher(source.getKeywords()));
+    }
+
+    public MarkVisitedResult markAsVisited(NewsSource source, String id) {
+        return markAsVisited(source, Criteria.where("_id").is(id));
+    }
+
+    public MarkVisitedResult markAsVisitedUsingLink(NewsSource source, String link) {
+        return markAsVisited(source, Criteria.where("url").is(link));
+    }
+
+    public MarkVisitedResult markMultipleAsVisited(NewsSource source, List<String> ids) {
+        return markAsVisited(source, Criteria.where("_id").in(ids));
+    }
+
+    /**
+     * Marks every matching article as visited in a single updateMulti.
+     * lastUpdated is set server-side and only for articles that weren't visited yet,
+     * so the modified count tells how many articles actually changed.
+     */
+    private MarkVisitedResult markAsVisited(NewsSource source, Criteria criteria) {
+        AggregationUpdate update = AggregationUpdate.from(List.of(context -> new Document("$set", new Document()
+                .append("visited", true)
+                .append("lastUpdated", new Document("$cond", Arrays.asList(
+                        new Document("$eq", Arrays.asList("$visited", true)), "$lastUpdated", "$$NOW"))))));
+
+        UpdateResult result = mongoTemplate.updateMulti(new Query(criteria), update, NewsArticle.class, source.getCollectionName());
+        return new MarkVisitedResult(result.getMatchedCount(), result.getModifiedCount());
+    }
+}
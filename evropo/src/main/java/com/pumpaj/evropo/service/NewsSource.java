@@ -0,0 +1,42 @@
+package com.pumpaj.evropo.service;
+
+import java.util.List;
+
+/**
+ * A news outlet the pipeline scrapes and analyses.
+ * Sources are usually declared under "news.sources.*" in application.properties,
+ * but any Spring bean implementing this interface is picked up as well.
+ */
+public interface NewsSource {
+
+    /**
+     * Short id used in the REST paths, e.g. "021" for /api/021/viableLinks.
+     */
+    String getId();
+
+    /**
+     * Source tag passed to the analyzer and stored on articles, e.g. "021.rs".
+     */
+    String getSourceTag();
+
+    /**
+     * MongoDB collection holding this source's articles.
+     */
+    String getCollectionName();
+
+    /**
+     * Name of the listing-page rules under "scraper.sites.*".
+     */
+    String getScraperSite();
+
+    /**
+     * Title keywords that make an article worth analysing.
+     */
+    List<String> getKeywords();
+
+    /**
+     * CSS selectors tried in order to find the article body on an article page.
+     * Empty means the analyzer's built-in rules for the source tag are used.
+     */
+    List<String> getArticleSelectors();
+}
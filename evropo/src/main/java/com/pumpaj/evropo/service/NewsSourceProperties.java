@@ -0,0 +1,84 @@
+package com.pumpaj.evropo.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * News sources declared under "news.sources.*". Adding an outlet only needs a new entry here
+ * plus its listing rules under "scraper.sites.*".
+ */
+@Component
+@ConfigurationProperties(prefix = "news")
+public class NewsSourceProperties {
+
+    private Map<String, Source> sources = new LinkedHashMap<>();
+
+    public static class Source {
+        private String sourceTag;
+
+        private String collection;
+
+        // Defaults to the source id
+        private String scraperSite;
+
+        // Classpath resource with one keyword per line
+        private String keywordsResource;
+
+        private List<String> articleSelectors = new ArrayList<>();
+
+        // Getters and setters
+        public String getSourceTag() {
+            return sourceTag;
+        }
+
+        public void setSourceTag(String sourceTag) {
+            this.sourceTag = sourceTag;
+        }
+
+        public String getCollection() {
+            return collection;
+        }
+
+        public void setCollection(String collection) {
+            this.collection = collection;
+        }
+
+        public String getScraperSite() {
+            return scraperSite;
+        }
+
+        public void setScraperSite(String scraperSite) {
+            this.scraperSite = scraperSite;
+        }
+
+        public String getKeywordsResource() {
+            return keywordsResource;
+        }
+
+        public void setKeywordsResource(String keywordsResource) {
+            this.keywordsResource = keywordsResource;
+        }
+
+        public List<String> getArticleSelectors() {
+            return articleSelectors;
+        }
+
+        public void setArticleSelectors(List<String> articleSelectors) {
+            this.articleSelectors = articleSelectors;
+        }
+    }
+
+    // Getters and setters
+    public Map<String, Source> getSources() {
+        return sources;
+    }
+
+    public void setSources(Map<String, Source> sources) {
+        this.sources = sources;
+    }
+}
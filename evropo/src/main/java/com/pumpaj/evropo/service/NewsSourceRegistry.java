@@ -0,0 +1,128 @@
+package com.pumpaj.evropo.service;
+
+import org.bson.Document;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * All registered news sources, from configuration and from NewsSource beans.
+ * Also makes sure every source's article collection has the indexes the pipeline relies on.
+ */
+@Service
+public class NewsSourceRegistry {
+
+    private final Map<String, NewsSource> sources = new LinkedHashMap<>();
+    private final MongoTemplate mongoTemplate;
+
+    public NewsSourceRegistry(NewsSourceProperties properties, ObjectProvider<NewsSource> sourceBeans, MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+
+        properties.getSources().forEach((id, config) -> register(new ConfiguredNewsSource(id, config)));
+        sourceBeans.orderedStream().forEach(this::register);
+    }
+
+    public Collection<NewsSource> getSources() {
+        return Collections.unmodifiableCollection(sources.values());
+    }
+
+    public Optional<NewsSource> getSource(String id) {
+        return Optional.ofNullable(sources.get(id));
+    }
+
+    private void register(NewsSource source) {
+        if (sources.putIfAbsent(source.getId(), source) != null) {
+            throw new IllegalStateException("Duplicate news source id: " + source.getId());
+        }
+        ensureIndexes(source);
+    }
+
+    private void ensureIndexes(NewsSource source) {
+        IndexOperations indexOperations = mongoTemplate.indexOps(source.getCollectionName());
+
+        // Named like the index @Indexed used to create, so existing collections keep theirs
+        indexOperations.ensureIndex(new Index().named("url").on("url", Sort.Direction.ASC).unique());
+        indexOperations.ensureIndex(new Index()
+                .on("url", Sort.Direction.ASC)
+                .on("title", Sort.Direction.ASC)
+                .unique());
+        indexOperations.ensureIndex(new Index()
+                .named("unvisited_relevant_idx")
+                .on("visited", Sort.Direction.ASC)
+                .on("relevant", Sort.Direction.ASC)
+                .partial(PartialIndexFilter.of(new Document("visited", false).append("relevant", true))));
+    }
+
+    private static class ConfiguredNewsSource implements NewsSource {
+        private final String id;
+        private final String sourceTag;
+        private final String collectionName;
+        private final String scraperSite;
+        private final List<String> keywords;
+        private final List<String> articleSelectors;
+
+        ConfiguredNewsSource(String id, NewsSourceProperties.Source config) {
+            this.id = id;
+            this.sourceTag = Objects.requireNonNull(config.getSourceTag(), "news.sources." + id + ".source-tag is required");
+            this.collectionName = Objects.requireNonNull(config.getCollection(), "news.sources." + id + ".collection is required");
+            this.scraperSite = config.getScraperSite() != null ? config.getScraperSite() : id;
+            this.keywords = config.getKeywordsResource() != null ? loadKeywords(config.getKeywordsResource()) : List.of();
+            this.articleSelectors = List.copyOf(config.getArticleSelectors());
+        }
+
+        private static List<String> loadKeywords(String resource) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new ClassPathResource(resource).getInputStream(), StandardCharsets.UTF_8))) {
+                return reader.lines()
+                        .map(String::trim)
+                        .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                        .collect(Collectors.toUnmodifiableList());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not load keywords from " + resource, e);
+            }
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String getSourceTag() {
+            return sourceTag;
+        }
+
+        @Override
+        public String getCollectionName() {
+            return collectionName;
+        }
+
+        @Override
+        public String getScraperSite() {
+            return scraperSite;
+        }
+
+        @Override
+        public List<String> getKeywords() {
+            return keywords;
+        }
+
+        @Override
+        public List<String> getArticleSelectors() {
+            return articleSelectors;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.pumpaj.evropo.service;
+
+/**
+ * Receives progress updates while a pipeline run is in flight.
+ */
+public interface PipelineProgress {
+
+    PipelineProgress NONE = new PipelineProgress() {
+        @Override
+        public void stage(String stage) {
+        }
+
+        @Override
+        public void analysed(int completed, int total) {
+        }
+    };
+
+    /**
+     * The run moved to another stage, e.g. "scraping" or "analysing".
+     */
+    void stage(String stage);
+
+    /**
+     * Another article finished analysing, successfully or not.
+     */
+    void analysed(int completed, int total);
+}
@@ -0,0 +1,140 @@
+package com.pumpaj.evropo.service;
+
+import com.pumpaj.evropo.model.Protest.Organizer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Turns the organizer, location and date the analysis reports into the key protests are stored
+ * under, so "Beograd", "Belgrade" and "u Beogradu" organized by "studenti" are one protest:
+ * <ul>
+ *     <li>organizer: an {@link Organizer}, from its code or from the words the analysis uses instead;</li>
+ *     <li>location: the id and name of the gazetteer place, or the folded text when there is none;</li>
+ *     <li>date: the day, whatever format it was written in.</li>
+ * </ul>
+ */
+@Service
+public class ProtestKeyResolver {
+
+    // Checked first, the government buses in "students who want to learn" to counter the blockades
+    private static final List<String> GOVERNMENT_PHRASES = List.of(
+            "want to learn", "zele da uce", "cacilend");
+    // Compared stemmed, so "vlade" and "gradjana" count as well
+    private static final Set<String> GOVERNMENT_WORDS = stems(
+            "gov", "government", "state", "vlada", "vlast", "drzava", "sns", "naprednjaci");
+    private static final Set<String> STUDENT_AND_OTHER_WORDS = stems(
+            "s&o", "student", "students", "citizens", "gradjani", "opposition", "opozicija",
+            "zbor", "zborovi", "sindikat", "unions", "profesori", "teachers");
+
+    @Autowired
+    private Gazetteer gazetteer;
+
+    public Optional<ProtestKey> resolve(String organizer, String location, String date) {
+        Optional<Instant> day = DataProcessingService.parseDate(date);
+        if (day.isEmpty()) {
+            return Optional.empty();
+        }
+        return resolve(organizer, location, LocalDate.ofInstant(day.get(), ZoneOffset.UTC));
+    }
+
+    public Optional<ProtestKey> resolve(String organizer, String location, LocalDate date) {
+        Optional<Organizer> canonicalOrganizer = organizer(organizer);
+        String locationKey = Gazetteer.key(location);
+        if (canonicalOrganizer.isEmpty() || locationKey.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Optional<Gazetteer.Place> place = gazetteer.find(location);
+        String locationId = place.map(Gazetteer.Place::getId).orElse(locationKey);
+        String locationName = place.map(Gazetteer.Place::getName).orElse(location.trim());
+        return Optional.of(new ProtestKey(canonicalOrganizer.get(), locationId, locationName, date));
+    }
+
+    /**
+     * The organizer a code or a free-text description names, empty for "unknown" and anything unclear.
+     */
+    static Optional<Organizer> organizer(String text) {
+        Optional<Organizer> code = Organizer.fromCode(text == null ? "" : text.trim());
+        if (code.isPresent()) {
+            return code;
+        }
+
+        String folded = TextNormalizer.fold(text);
+        if (GOVERNMENT_PHRASES.stream().anyMatch(folded::contains)) {
+            return Optional.of(Organizer.GOVERNMENT);
+        }
+        List<String> words = Arrays.stream(folded.split("[^\\p{L}&]+")).map(Gazetteer::stem).toList();
+        boolean government = words.stream().anyMatch(GOVERNMENT_WORDS::contains);
+        boolean studentsAndOthers = words.stream().anyMatch(STUDENT_AND_OTHER_WORDS::contains);
+        if (government == studentsAndOthers) {
+            return Optional.empty();
+        }
+        return Optional.of(government ? Organizer.GOVERNMENT : Organizer.STUDENTS_AND_OTHERS);
+    }
+
+    private static Set<String> stems(String... words) {
+        return Arrays.stream(words).map(Gazetteer::stem).collect(Collectors.toSet());
+    }
+
+    /**
+     * The canonical organizer, location and day of a protest.
+     */
+    public static final class ProtestKey {
+        private final Organizer organizer;
+        private final String locationId;
+        private final String location;
+        private final LocalDate date;
+
+        ProtestKey(Organizer organizer, String locationId, String location, LocalDate date) {
+            this.organizer = organizer;
+            this.locationId = locationId;
+            this.location = location;
+            this.date = date;
+        }
+
+        public Organizer getOrganizer() {
+            return organizer;
+        }
+
+        public String getLocationId() {
+            return locationId;
+        }
+
+        public String getLocation() {
+            return location;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        /**
+         * The day as protests store it, midnight UTC.
+         */
+        public Instant getStoredDate() {
+            return date.atStartOfDay(ZoneOffset.UTC).toInstant();
+        }
+
+        // The location name is only what the place is shown as, it isn't part of the key
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ProtestKey other && organizer == other.organizer
+                    && locationId.equals(other.locationId) && date.equals(other.date);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(organizer, locationId, date);
+        }
+    }
+}
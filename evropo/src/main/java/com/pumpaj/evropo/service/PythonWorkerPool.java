@@ -0,0 +1,357 @@
+package com.pumpaj.evropo.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of long-lived Python worker processes.
+ * Each worker runs scripts/python_worker.py, which imports the analyzer module once
+ * and then answers one JSON request per line on stdin with one JSON response per
+ * line on stdout. Crashed workers are replaced on the next request, workers that
+ * miss a request's deadline are killed along with their child processes.
+ */
+@Service
+public class PythonWorkerPool {
+
+    @Value("${python.executable.path:python}")
+    private String pythonPath;
+
+    @Value("${python.script.path.worker:scripts/python_worker.py}")
+    private String workerScriptPath;
+
+    @Value("${python.script.path.analyzer:scripts/gemini_text_analysis.py}")
+    private String analyzerScriptPath;
+
+    // Hard deadlines per request type, a worker that misses one is killed
+    @Value("${python.worker.timeout.ping-ms:5000}")
+    private long pingTimeoutMillis;
+
+    @Value("${python.worker.timeout.fetch-ms:30000}")
+    private long fetchTimeoutMillis;
+
+    @Value("${python.worker.timeout.analyze-ms:120000}")
+    private long analyzeTimeoutMillis;
+
+    @Value("${python.worker.timeout.batch-ms:300000}")
+    private long batchTimeoutMillis;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BlockingQueue<Worker> idleWorkers = new LinkedBlockingQueue<>();
+    private final AtomicLong requestIds = new AtomicLong();
+    private final Semaphore permits;
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "python-worker-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Path scriptDirectory;
+    private volatile boolean shutdown = false;
+
+    public PythonWorkerPool(@Value("${python.worker.pool.size:2}") int poolSize) {
+        this.permits = new Semaphore(poolSize, true);
+    }
+
+    /**
+     * Sends a request to a free worker and returns the "result" part of its response.
+     * A worker that dies mid-request is discarded and the request is retried once on a fresh worker.
+     */
+    public JsonNode execute(ObjectNode request) throws IOException, InterruptedException {
+        permits.acquire();
+        try {
+            try {
+                return executeOnIdleWorker(request);
+            } catch (WorkerCrashedException e) {
+                System.err.println("Python worker crashed, retrying on a fresh worker: " + e.getMessage());
+                return executeOnIdleWorker(request);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private JsonNode executeOnIdleWorker(ObjectNode request) throws IOException {
+        Worker worker = idleWorkers.poll();
+        if (worker == null || !worker.isAlive()) {
+            if (worker != null) {
+                worker.destroy();
+            }
+            worker = startWorker();
+        }
+
+        JsonNode response;
+        try {
+            response = worker.call(request, timeoutFor(request.path("type").asText()));
+        } catch (WorkerTimeoutException e) {
+            worker.destroy();
+            throw e;
+        } catch (IOException e) {
+            worker.destroy();
+            throw new WorkerCrashedException(e.getMessage());
+        }
+
+        releaseWorker(worker);
+
+        if (!response.path("ok").asBoolean()) {
+            String error = response.path("error").asText("unknown error");
+            switch (response.path("error_type").asText("error")) {
+                case "rate_limited":
+                    throw new LlmUnavailableException("LLM rate limited: " + error, true);
+                case "unavailable":
+                    throw new LlmUnavailableException("LLM unavailable: " + error, false);
+                default:
+                    throw new IOException("Python worker error: " + error);
+            }
+        }
+        return response.path("result");
+    }
+
+    private long timeoutFor(String requestType) {
+        switch (requestType) {
+            case "ping":
+                return pingTimeoutMillis;
+            case "fetch":
+                return fetchTimeoutMillis;
+            case "analyze_batch":
+                return batchTimeoutMillis;
+            default:
+                return analyzeTimeoutMillis;
+        }
+    }
+
+    private void releaseWorker(Worker worker) {
+        if (shutdown || !worker.isAlive()) {
+            worker.destroy();
+        } else {
+            idleWorkers.offer(worker);
+        }
+    }
+
+    /**
+     * Pings idle workers and replaces the ones that no longer respond.
+     */
+    @Scheduled(fixedDelayString = "${python.worker.health-check-interval-ms:60000}")
+    public void checkIdleWorkers() {
+        int idleCount = idleWorkers.size();
+        for (int i = 0; i < idleCount && permits.tryAcquire(); i++) {
+            try {
+                Worker worker = idleWorkers.poll();
+                if (worker == null) {
+                    return;
+                }
+
+                ObjectNode ping = objectMapper.createObjectNode();
+                ping.put("type", "ping");
+                try {
+                    if (worker.isAlive() && "pong".equals(worker.call(ping, pingTimeoutMillis).path("result").asText())) {
+                        releaseWorker(worker);
+                        continue;
+                    }
+                } catch (IOException e) {
+                    System.err.println("Python worker failed health check: " + e.getMessage());
+                }
+                worker.destroy();
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shutdown = true;
+        watchdog.shutdownNow();
+        Worker worker;
+        while ((worker = idleWorkers.poll()) != null) {
+            worker.destroy();
+        }
+    }
+
+    private Worker startWorker() throws IOException {
+        Path directory = extractScripts();
+        Path workerScript = directory.resolve(Path.of(workerScriptPath).getFileName());
+
+        ProcessBuilder pb = new ProcessBuilder(pythonPath, "-u", workerScript.toString());
+        pb.directory(directory.toFile());
+        pb.environment().put("PYTHONIOENCODING", "utf-8");
+        // stdout is reserved for the protocol, logs on stderr are drained by the worker
+
+        return new Worker(pb.start());
+    }
+
+    /**
+     * Copies the worker and the modules it imports into one temp directory, once per pool.
+     */
+    private synchronized Path extractScripts() throws IOException {
+        if (scriptDirectory != null) {
+            return scriptDirectory;
+        }
+
+        Path directory = Files.createTempDirectory("evropo-python");
+        List<String> scripts = List.of(workerScriptPath, analyzerScriptPath);
+        List<File> extracted = new ArrayList<>();
+
+        for (String script : scripts) {
+            ClassPathResource resource = new ClassPathResource(script);
+            Path target = directory.resolve(Path.of(script).getFileName());
+            try (InputStream is = resource.getInputStream()) {
+                Files.copy(is, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            extracted.add(target.toFile());
+        }
+
+        directory.toFile().deleteOnExit();
+        extracted.forEach(File::deleteOnExit);
+
+        scriptDirectory = directory;
+        return directory;
+    }
+
+    private class Worker {
+        private final Process process;
+        private final BufferedWriter writer;
+        private final JsonParser parser;
+        private volatile boolean timedOut;
+
+        Worker(Process process) throws IOException {
+            this.process = process;
+            this.writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            // Responses are parsed straight off the stream, one root-level object after another
+            this.parser = objectMapper.getFactory().createParser(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+
+            Thread stderrDrain = new Thread(this::drainStderr, "python-worker-" + process.pid() + "-stderr");
+            stderrDrain.setDaemon(true);
+            stderrDrain.start();
+        }
+
+        /**
+         * Sends one request and waits for the response with the same id. If none arrives within
+         * the deadline the worker and everything it started are killed, which also unblocks the read.
+         */
+        JsonNode call(ObjectNode request, long timeoutMillis) throws IOException {
+            String id = String.valueOf(requestIds.incrementAndGet());
+            ObjectNode message = request.deepCopy();
+            message.put("id", id);
+
+            ScheduledFuture<?> deadline = watchdog.schedule(() -> {
+                timedOut = true;
+                destroy();
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+
+            try {
+                writer.write(objectMapper.writeValueAsString(message));
+                writer.newLine();
+                writer.flush();
+
+                JsonToken token;
+                while ((token = parser.nextToken()) != null) {
+                    if (token != JsonToken.START_OBJECT) {
+                        throw new JsonParseException(parser, "Expected a JSON object from the Python worker, got " + token);
+                    }
+                    JsonNode response = parser.readValueAsTree();
+                    if (id.equals(response.path("id").asText())) {
+                        return response;
+                    }
+                }
+            } catch (IOException e) {
+                if (!timedOut) {
+                    throw e;
+                }
+            } finally {
+                deadline.cancel(false);
+            }
+
+            if (timedOut) {
+                throw new WorkerTimeoutException("Python worker did not answer '" + request.path("type").asText()
+                        + "' within " + timeoutMillis + " ms, killed it");
+            }
+            throw new EOFException("Python worker exited with code " + waitForExit());
+        }
+
+        boolean isAlive() {
+            return process.isAlive();
+        }
+
+        /**
+         * Kills the worker together with any process it started, e.g. a hung browser or subprocess.
+         */
+        void destroy() {
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        }
+
+        // Read continuously so a chatty worker can never block on a full stderr pipe
+        private void drainStderr() {
+            try (BufferedReader errors = new BufferedReader(
+                    new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = errors.readLine()) != null) {
+                    System.err.println("[python-worker " + process.pid() + "] " + line);
+                }
+            } catch (IOException e) {
+                // The stream is closed when the worker is killed
+            }
+        }
+
+        private String waitForExit() {
+            try {
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    return "unknown (still running)";
+                }
+                return String.valueOf(process.exitValue());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return "unknown";
+            }
+        }
+    }
+
+    /**
+     * The worker gave no answer: it crashed or missed its deadline. Unlike an error the worker
+     * answered with, this counts against the health of the LLM backend, see {@link LlmGuard}.
+     */
+    static class WorkerFailedException extends IOException {
+        WorkerFailedException(String message) {
+            super(message);
+        }
+    }
+
+    static class WorkerCrashedException extends WorkerFailedException {
+        WorkerCrashedException(String message) {
+            super(message);
+        }
+    }
+
+    // Not retried, the same request would most likely hang again
+    static class WorkerTimeoutException extends WorkerFailedException {
+        WorkerTimeoutException(String message) {
+            super(message);
+        }
+    }
+}
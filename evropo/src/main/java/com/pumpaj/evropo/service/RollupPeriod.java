@@ -0,0 +1,44 @@
+package com.pumpaj.evropo.service;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Periods day metrics are rolled up into, each kept in its own collection with one
+ * document per period start and source.
+ */
+public enum RollupPeriod {
+    WEEK("days_weekly", "week"),
+    MONTH("days_monthly", "month");
+
+    private final String collection;
+    // Unit of MongoDB's $dateTrunc, used when a rollup is rebuilt from days
+    private final String dateTruncUnit;
+
+    RollupPeriod(String collection, String dateTruncUnit) {
+        this.collection = collection;
+        this.dateTruncUnit = dateTruncUnit;
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public String getDateTruncUnit() {
+        return dateTruncUnit;
+    }
+
+    /**
+     * Midnight UTC of the Monday or the first of the month the date falls in.
+     */
+    public Instant startOf(Instant date) {
+        LocalDate day = LocalDate.ofInstant(date, ZoneOffset.UTC);
+        LocalDate start = this == WEEK
+                ? day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                : day.withDayOfMonth(1);
+        return start.atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+}
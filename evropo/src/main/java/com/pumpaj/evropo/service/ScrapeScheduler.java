@@ -0,0 +1,129 @@
+package com.pumpaj.evropo.service;
+
+import com.pumpaj.evropo.model.PipelineResult;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * Polls every registered news source on its own schedule, on a thread pool separate from
+ * Spring's default scheduler. After each run the next one is planned from the source's
+ * observed rate of new articles (see {@link AdaptivePollingInterval}), so a slow source
+ * never pushes back another one. Runs go through the JobService, so they join a run already in flight.
+ * The scheduler's threads only start runs; the next run is planned when a run completes, so
+ * however many sources there are, none waits for a thread held by another.
+ */
+@Service
+public class ScrapeScheduler {
+
+    @Autowired
+    private NewsSourceRegistry sourceRegistry;
+
+    @Autowired
+    private JobService jobService;
+
+    @Value("${scraper.schedule.initial-delay-seconds:10}")
+    private long initialDelaySeconds;
+
+    @Value("${scraper.schedule.min-interval-minutes:15}")
+    private long minIntervalMinutes;
+
+    @Value("${scraper.schedule.max-interval-minutes:180}")
+    private long maxIntervalMinutes;
+
+    @Value("${scraper.schedule.initial-interval-minutes:60}")
+    private long initialIntervalMinutes;
+
+    @Value("${scraper.schedule.target-new-per-poll:10}")
+    private double targetNewPerPoll;
+
+    @Value("${scraper.schedule.quiet-hours-start:01:00}")
+    private String quietHoursStart;
+
+    @Value("${scraper.schedule.quiet-hours-end:06:00}")
+    private String quietHoursEnd;
+
+    @Value("${scraper.schedule.zone:Europe/Belgrade}")
+    private ZoneId zone;
+
+    private final ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+
+    public ScrapeScheduler(@Value("${scraper.schedule.pool-size:2}") int poolSize) {
+        taskScheduler.setPoolSize(poolSize);
+        taskScheduler.setThreadNamePrefix("scrape-");
+        taskScheduler.setDaemon(true);
+        taskScheduler.initialize();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (NewsSource source : sourceRegistry.getSources()) {
+            SourceSchedule schedule = new SourceSchedule(source, new AdaptivePollingInterval(
+                    Duration.ofMinutes(minIntervalMinutes),
+                    Duration.ofMinutes(maxIntervalMinutes),
+                    Duration.ofMinutes(initialIntervalMinutes),
+                    targetNewPerPoll, LocalTime.parse(quietHoursStart), LocalTime.parse(quietHoursEnd)));
+            scheduleNext(schedule, Duration.ofSeconds(initialDelaySeconds));
+        }
+    }
+
+    private void run(SourceSchedule schedule) {
+        Instant startedAt = Instant.now();
+        try {
+            // Joins the run if the source was just triggered through the API
+            jobService.trigger(schedule.source, "scheduler").getCompletion()
+                    .whenComplete((result, error) -> completed(schedule, startedAt, result, error));
+        } catch (RuntimeException e) {
+            completed(schedule, startedAt, null, e);
+        }
+    }
+
+    private void completed(SourceSchedule schedule, Instant startedAt, PipelineResult result, Throwable error) {
+        Duration delay;
+        if (error == null) {
+            Duration sinceLastRun = schedule.lastRunAt != null ? Duration.between(schedule.lastRunAt, startedAt) : null;
+            schedule.lastRunAt = startedAt;
+            delay = schedule.interval.record(result.getNewArticles(), sinceLastRun, ZonedDateTime.now(zone));
+        } else {
+            System.err.println("Scheduled run of " + schedule.source.getId() + " failed: " + error.getMessage());
+            delay = schedule.interval.getCurrent();
+        }
+
+        System.out.println("Next run of " + schedule.source.getId() + " in " + delay.toMinutes() + " min ("
+                + String.format("%.1f", schedule.interval.getArticlesPerHour()) + " new articles/h)");
+        scheduleNext(schedule, delay);
+    }
+
+    private void scheduleNext(SourceSchedule schedule, Duration delay) {
+        if (taskScheduler.getScheduledExecutor().isShutdown()) {
+            return;
+        }
+        taskScheduler.schedule(() -> run(schedule), Instant.now().plus(delay));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        taskScheduler.shutdown();
+    }
+
+    private static class SourceSchedule {
+        private final NewsSource source;
+        private final AdaptivePollingInterval interval;
+        private Instant lastRunAt;
+
+        SourceSchedule(NewsSource source, AdaptivePollingInterval interval) {
+            this.source = source;
+            this.interval = interval;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.pumpaj.evropo.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Declarative rules for the listing-page scraper, bound from the "scraper.*" properties.
+ * Each site names its listing URL and the CSS selectors that locate article titles and links.
+ */
+@Component
+@ConfigurationProperties(prefix = "scraper")
+public class ScraperProperties {
+
+    private String userAgent = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36";
+
+    private int timeoutSeconds = 15;
+
+    private Map<String, Site> sites = new HashMap<>();
+
+    public static class Site {
+        private String url;
+
+        // Selector for one article entry on the listing page
+        private String itemSelector;
+
+        // Selectors tried in order inside an item, the first one that matches gives the title
+        private List<String> titleSelectors = new ArrayList<>();
+
+        // Selector for the anchor holding the article link, relative to an item
+        private String linkSelector;
+
+        // Links whose path starts with one of these prefixes are skipped (ads etc.)
+        private List<String> excludedPathPrefixes = new ArrayList<>();
+
+        // Getters and setters
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getItemSelector() {
+            return itemSelector;
+        }
+
+        public void setItemSelector(String itemSelector) {
+            this.itemSelector = itemSelector;
+        }
+
+        public List<String> getTitleSelectors() {
+            return titleSelectors;
+        }
+
+        public void setTitleSelectors(List<String> titleSelectors) {
+            this.titleSelectors = titleSelectors;
+        }
+
+        public String getLinkSelector() {
+            return linkSelector;
+        }
+
+        public void setLinkSelector(String linkSelector) {
+            this.linkSelector = linkSelector;
+        }
+
+        public List<String> getExcludedPathPrefixes() {
+            return excludedPathPrefixes;
+        }
+
+        public void setExcludedPathPrefixes(List<String> excludedPathPrefixes) {
+            this.excludedPathPrefixes = excludedPathPrefixes;
+        }
+    }
+
+    // Getters and setters
+    public String getUserAgent() {
+        return userAgent;
+    }
+
+    public void setUserAgent(String userAgent) {
+        this.userAgent = userAgent;
+    }
+
+    public int getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    public void setTimeoutSeconds(int timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    public Map<String, Site> getSites() {
+        return sites;
+    }
+
+    public void setSites(Map<String, Site> sites) {
+        this.sites = sites;
+    }
+}
@@ -0,0 +1,71 @@
+package com.pumpaj.evropo.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 64-bit SimHash of article text. Texts that share most of their word shingles get
+ * fingerprints that differ in only a few bits, so near-duplicates can be found by Hamming distance.
+ * Text is folded with {@link TextNormalizer} first, so script and diacritics don't matter.
+ */
+public final class SimHash {
+
+    private static final int SHINGLE_SIZE = 3;
+
+    private SimHash() {
+    }
+
+    public static long fingerprint(List<String> tokens) {
+        int[] weights = new int[64];
+
+        int shingles = Math.max(1, tokens.size() - SHINGLE_SIZE + 1);
+        for (int i = 0; i < shingles; i++) {
+            String shingle = String.join(" ", tokens.subList(i, Math.min(tokens.size(), i + SHINGLE_SIZE)));
+            long hash = hash64(shingle);
+            for (int bit = 0; bit < 64; bit++) {
+                weights[bit] += ((hash >>> bit) & 1) == 1 ? 1 : -1;
+            }
+        }
+
+        long fingerprint = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Folded words of the text, punctuation dropped.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : TextNormalizer.fold(text).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    // FNV-1a followed by a murmur finalizer, so similar shingles don't get similar hashes
+    private static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,87 @@
+package com.pumpaj.evropo.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory LSH index over 64-bit SimHash fingerprints. Each fingerprint is split into four
+ * 16-bit bands and filed under every band value. Two fingerprints at most 3 bits apart always
+ * agree on at least one band, so a lookup only compares against the few entries in its own four
+ * buckets instead of the whole index. Not thread-safe, callers synchronize.
+ */
+public class SimHashIndex {
+
+    public static final int BANDS = 4;
+    public static final int MAX_GUARANTEED_DISTANCE = BANDS - 1;
+
+    private static final int BAND_BITS = 64 / BANDS;
+
+    private final Map<Long, List<Entry>> buckets = new HashMap<>();
+    private int size;
+
+    public void add(Entry entry) {
+        for (int band = 0; band < BANDS; band++) {
+            buckets.computeIfAbsent(bucketKey(entry.fingerprint, band), key -> new ArrayList<>()).add(entry);
+        }
+        size++;
+    }
+
+    /**
+     * The closest entry within maxDistance bits, ignoring entries of the given URL.
+     */
+    public Optional<Entry> findNearest(long fingerprint, int maxDistance, String excludedUrl) {
+        Entry nearest = null;
+        int nearestDistance = Integer.MAX_VALUE;
+
+        for (int band = 0; band < BANDS; band++) {
+            for (Entry candidate : buckets.getOrDefault(bucketKey(fingerprint, band), List.of())) {
+                if (candidate.url.equals(excludedUrl)) {
+                    continue;
+                }
+                int distance = SimHash.distance(fingerprint, candidate.fingerprint);
+                if (distance <= maxDistance && distance < nearestDistance) {
+                    nearest = candidate;
+                    nearestDistance = distance;
+                }
+            }
+        }
+        return Optional.ofNullable(nearest);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static long bucketKey(long fingerprint, int band) {
+        long bandValue = (fingerprint >>> (band * BAND_BITS)) & ((1L << BAND_BITS) - 1);
+        return ((long) band << BAND_BITS) | bandValue;
+    }
+
+    public static class Entry {
+        private final String url;
+        private final long fingerprint;
+        // The article this one duplicates, or its own URL if it is canonical
+        private final String canonicalUrl;
+
+        public Entry(String url, long fingerprint, String canonicalUrl) {
+            this.url = url;
+            this.fingerprint = fingerprint;
+            this.canonicalUrl = canonicalUrl;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public long getFingerprint() {
+            return fingerprint;
+        }
+
+        public String getCanonicalUrl() {
+            return canonicalUrl;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.pumpaj.evropo.service;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Folds Serbian text into a comparable form: Latin script, lower case, without diacritics.
+ * "Šetnja", "šetnja", "setnja" and "шетња" all become "setnja".
+ */
+public final class TextNormalizer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private static final Map<Character, String> CYRILLIC_TO_LATIN = Map.ofEntries(
+            Map.entry('а', "a"), Map.entry('б', "b"), Map.entry('в', "v"), Map.entry('г', "g"),
+            Map.entry('д', "d"), Map.entry('ђ', "đ"), Map.entry('е', "e"), Map.entry('ж', "ž"),
+            Map.entry('з', "z"), Map.entry('и', "i"), Map.entry('ј', "j"), Map.entry('к', "k"),
+            Map.entry('л', "l"), Map.entry('љ', "lj"), Map.entry('м', "m"), Map.entry('н', "n"),
+            Map.entry('њ', "nj"), Map.entry('о', "o"), Map.entry('п', "p"), Map.entry('р', "r"),
+            Map.entry('с', "s"), Map.entry('т', "t"), Map.entry('ћ', "ć"), Map.entry('у', "u"),
+            Map.entry('ф', "f"), Map.entry('х', "h"), Map.entry('ц', "c"), Map.entry('ч', "č"),
+            Map.entry('џ', "dž"), Map.entry('ш', "š")
+    );
+
+    private TextNormalizer() {
+    }
+
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+
+        String latin = transliterate(text.toLowerCase(Locale.ROOT));
+        // đ has no decomposed form, it is written as "dj" when diacritics are dropped
+        String withoutDj = latin.replace("đ", "dj");
+        String decomposed = Normalizer.normalize(withoutDj, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("");
+    }
+
+    /**
+     * Converts lower-case Serbian Cyrillic to Latin, leaving every other character as it is.
+     */
+    public static String transliterate(String text) {
+        StringBuilder latin = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String replacement = CYRILLIC_TO_LATIN.get(c);
+            if (replacement != null) {
+                latin.append(replacement);
+            } else {
+                latin.append(c);
+            }
+        }
+        return latin.toString();
+    }
+}
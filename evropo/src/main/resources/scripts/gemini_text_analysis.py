@@ -47,13 +47,15 @@ except Exception as e:
     print(f"Error initializing Gemini model: {e}")
     exit(1)
 
-def scrape_article_text(url, source_type):
+def scrape_article_text(url, source_type, selectors=None):
     """
     Scrapes the main article text from a given URL based on the source type.
 
     Args:
         url (str): The URL of the article page.
         source_type (str): The source identifier ('021.rs' or 'informer.rs').
+        selectors (list): Optional CSS selectors tried in order to find the article
+            container. When given, they replace the built-in rules for the source.
 
     Returns:
         str: The extracted article text, or None if scraping fails.
@@ -72,7 +74,14 @@ def scrape_article_text(url, source_type):
         soup = BeautifulSoup(response.content, 'html.parser')
         article_div = None
 
-        if source_type == '021.rs':
+        if selectors:
+            # Selectors configured for the source on the Java side
+            for selector in selectors:
+                article_div = soup.select_one(selector)
+                if article_div:
+                    break
+
+        elif source_type == '021.rs':
             # Target the specific div containing the main story content
             article_div = soup.find('div', class_='story')
             if not article_div:
@@ -118,19 +127,43 @@ def scrape_article_text(url, source_type):
         return None
 
 
-def analyze_text_sentiment(text_to_analyze):
+class LlmUnavailableError(Exception):
+    """
+    Raised when Gemini rejects or can't serve a request. error_type is 'rate_limited'
+    for quota errors (HTTP 429) and 'unavailable' for server-side errors, so the Java
+    side can back off instead of treating the article as failed.
     """
-    Analyzes the input text using the Gemini API based on the predefined prompt.
 
-    Args:
-        text_to_analyze: The string containing the text to analyze (scraped article).
+    def __init__(self, error_type, message):
+        super().__init__(message)
+        self.error_type = error_type
 
-    Returns:
-        A dictionary containing the analysis in JSON format,
-        or None if an error occurs.
+
+def classify_api_error(error):
+    """
+    Returns LlmUnavailableError for throttling and server errors of the Gemini API, None otherwise.
+    """
+    # google.api_core exceptions carry the HTTP status as `code`
+    code = getattr(error, 'code', None)
+    name = type(error).__name__
+    if code == 429 or name in ('ResourceExhausted', 'TooManyRequests'):
+        return LlmUnavailableError('rate_limited', str(error))
+    if code in (500, 502, 503, 504) or name in ('InternalServerError', 'BadGateway', 'ServiceUnavailable', 'DeadlineExceeded'):
+        return LlmUnavailableError('unavailable', str(error))
+    return None
+
+
+# Bump whenever the prompt or the model changes, cached analyses made with an
+# older prompt are then no longer reused by the Java side.
+PROMPT_VERSION = "gemini-1.5-flash/1"
+
+
+def build_prompt(text_to_analyze):
+    """
+    Builds the analysis prompt for one article text.
     """
     # --- Using the complex prompt provided in the request ---
-    prompt = f"""
+    return f"""
 You are an advanced text analysis model. Your task is to analyze the following article, potentially about a student protest or other events, and return a structured JSON output containing specific metrics.
 
 Use the structure and detailed explanation below to perform your analysis accurately:
@@ -249,6 +282,20 @@ Always escape quotations in strings and ensure the output is valid JSON. Only ou
 JSON Output:
 """
 
+
+def analyze_text_sentiment(text_to_analyze):
+    """
+    Analyzes the input text using the Gemini API based on the predefined prompt.
+
+    Args:
+        text_to_analyze: The string containing the text to analyze (scraped article).
+
+    Returns:
+        A dictionary containing the analysis in JSON format,
+        or None if an error occurs.
+    """
+    prompt = build_prompt(text_to_analyze)
+
     if not text_to_analyze:
         print("Error: No text provided for analysis.")
         return None
@@ -318,6 +365,9 @@ JSON Output:
              print(f"Could not retrieve detailed feedback: {feedback_err}")
          return None
     except Exception as e:
+        unavailable = classify_api_error(e)
+        if unavailable:
+            raise unavailable from e
         # Catch potential errors during API call itself or other unexpected issues
         print(f"An error occurred during Gemini API call or processing: {e}")
         try:
@@ -330,6 +380,68 @@ JSON Output:
             pass # Ignore if response details are not available
         return None
 
+def build_batch_prompt(articles):
+    """
+    Builds one prompt asking for a separate analysis of every article.
+
+    Args:
+        articles (list): Dicts with an 'id' and the article 'text'.
+    """
+    # The single-article instructions, without their input text and output format
+    instructions = build_prompt("").rsplit("Text to analyse:", 1)[0]
+
+    parts = [instructions, """
+### Batch Input
+
+You will receive several unrelated articles, each one after a line "ARTICLE <id>". Analyse every article on its own, exactly as described above, without letting one article influence the analysis of another.
+
+Return ONE JSON object whose keys are the article ids and whose values are the JSON structure above for that article. Always escape quotations in strings and ensure the output is valid JSON. Only output the JSON object, without any introductory text or markdown formatting like ```json.
+"""]
+    for article in articles:
+        parts.append(f'\nARTICLE {article["id"]}\n"{article["text"]}"\n')
+    parts.append("\nJSON Output:\n")
+    return "".join(parts)
+
+
+def analyze_texts_batch(articles):
+    """
+    Analyzes several article texts with a single Gemini request.
+
+    Args:
+        articles (list): Dicts with an 'id' and the article 'text'.
+
+    Returns:
+        dict: Analysis per article id, only for the articles that came back as a JSON object.
+        Articles missing from the result have to be analysed on their own.
+
+    Raises:
+        Exception: If the request fails or the response is not a JSON object.
+    """
+    try:
+        response = model.generate_content(build_batch_prompt(articles))
+    except Exception as e:
+        unavailable = classify_api_error(e)
+        if unavailable:
+            raise unavailable from e
+        raise
+
+    cleaned_response = response.text.strip()
+    if cleaned_response.startswith("```json"):
+        cleaned_response = cleaned_response[len("```json"):].strip()
+    if cleaned_response.startswith("```"):
+        cleaned_response = cleaned_response[len("```"):].strip()
+    if cleaned_response.endswith("```"):
+        cleaned_response = cleaned_response[:-len("```")].strip()
+
+    extracted_data = json.loads(cleaned_response)
+    if not isinstance(extracted_data, dict):
+        raise ValueError(f"Expected a JSON object keyed by article id, got {type(extracted_data)}")
+
+    requested_ids = {str(article["id"]) for article in articles}
+    return {str(article_id): analysis for article_id, analysis in extracted_data.items()
+            if str(article_id) in requested_ids and isinstance(analysis, dict)}
+
+
 # --- Main Execution Block ---
 if __name__ == "__main__":
     parser = argparse.ArgumentParser(description="Scrape an article from 021.rs or informer.rs and analyze its text using Gemini.")
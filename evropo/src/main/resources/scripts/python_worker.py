@@ -0,0 +1,85 @@
+import io
+import json
+import sys
+import traceback
+
+# The worker talks to Java over stdin/stdout, one JSON object per line.
+# Everything else (prints and logging from the analysis code) must go to
+# stderr so it never gets mixed into the protocol channel.
+protocol_out = io.TextIOWrapper(sys.stdout.buffer, encoding='utf-8', line_buffering=True)
+protocol_in = io.TextIOWrapper(sys.stdin.buffer, encoding='utf-8')
+sys.stdout = sys.stderr
+
+# Imported once per worker, so google.generativeai, BeautifulSoup and the
+# Gemini model are only initialised when the worker starts.
+import gemini_text_analysis
+
+
+def handle_ping(request):
+    return "pong"
+
+
+def handle_fetch(request):
+    url = request.get('url')
+    source = request.get('source')
+    selectors = request.get('selectors')
+
+    scraped_text = gemini_text_analysis.scrape_article_text(url, source, selectors)
+    if not scraped_text:
+        raise RuntimeError(f"Scraping failed for {url}")
+
+    # The prompt version lets Java look up a cached analysis of the same text
+    return {'article_text': scraped_text, 'prompt_version': gemini_text_analysis.PROMPT_VERSION}
+
+
+def handle_analyze_text(request):
+    analysis_result = gemini_text_analysis.analyze_text_sentiment(request.get('text'))
+    if not analysis_result:
+        raise RuntimeError("Analysis failed")
+
+    return {'analysis_result': analysis_result, 'prompt_version': gemini_text_analysis.PROMPT_VERSION}
+
+
+def handle_analyze_batch(request):
+    # Articles the model skipped are simply missing, Java analyses those one by one
+    results = gemini_text_analysis.analyze_texts_batch(request.get('articles') or [])
+    return {'results': results, 'prompt_version': gemini_text_analysis.PROMPT_VERSION}
+
+
+HANDLERS = {
+    'ping': handle_ping,
+    'fetch': handle_fetch,
+    'analyze_text': handle_analyze_text,
+    'analyze_batch': handle_analyze_batch,
+}
+
+
+def respond(response):
+    protocol_out.write(json.dumps(response, ensure_ascii=False) + "\n")
+    protocol_out.flush()
+
+
+def main():
+    for line in protocol_in:
+        line = line.strip()
+        if not line:
+            continue
+
+        request_id = None
+        try:
+            request = json.loads(line)
+            request_id = request.get('id')
+            handler = HANDLERS.get(request.get('type'))
+            if handler is None:
+                raise ValueError(f"Unknown request type '{request.get('type')}'")
+
+            respond({'id': request_id, 'ok': True, 'result': handler(request)})
+        except Exception as e:
+            traceback.print_exc()
+            # 'rate_limited' and 'unavailable' make Java back off, anything else fails the request
+            error_type = getattr(e, 'error_type', 'error')
+            respond({'id': request_id, 'ok': False, 'error': str(e), 'error_type': error_type})
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,82 @@
+package com.pumpaj.evropo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptivePollingIntervalTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Belgrade");
+    private static final ZonedDateTime NOON = ZonedDateTime.of(2025, 3, 15, 12, 0, 0, 0, ZONE);
+
+    @Test
+    void startsWithInitialIntervalOnFirstRun() {
+        AdaptivePollingInterval interval = interval();
+
+        assertThat(interval.record(30, null, NOON)).isEqualTo(Duration.ofMinutes(60));
+    }
+
+    @Test
+    void pollsMoreOftenWhenManyArticlesArrive() {
+        AdaptivePollingInterval interval = interval();
+
+        // 40 new articles in an hour, 10 are expected in 15 minutes
+        assertThat(interval.record(40, Duration.ofHours(1), NOON)).isEqualTo(Duration.ofMinutes(15));
+    }
+
+    @Test
+    void followsTheObservedRate() {
+        AdaptivePollingInterval interval = interval();
+
+        // 10 new articles in 2 hours
+        assertThat(interval.record(10, Duration.ofHours(2), NOON)).isEqualTo(Duration.ofHours(2));
+    }
+
+    @Test
+    void backsOffToMaximumWhenNothingIsNew() {
+        AdaptivePollingInterval interval = interval();
+
+        assertThat(interval.record(0, Duration.ofHours(1), NOON)).isEqualTo(Duration.ofHours(3));
+    }
+
+    @Test
+    void smoothsSingleOutliers() {
+        AdaptivePollingInterval interval = interval();
+        interval.record(40, Duration.ofHours(1), NOON);
+
+        // One quiet hour after a busy one halves the rate instead of dropping it to zero
+        assertThat(interval.record(0, Duration.ofHours(1), NOON)).isEqualTo(Duration.ofMinutes(30));
+    }
+
+    @Test
+    void usesMaximumIntervalDuringQuietHours() {
+        AdaptivePollingInterval interval = interval();
+        ZonedDateTime night = NOON.withHour(3);
+
+        assertThat(interval.record(40, Duration.ofHours(1), night)).isEqualTo(Duration.ofHours(3));
+        assertThat(interval.getCurrent()).isEqualTo(Duration.ofMinutes(15));
+    }
+
+    @Test
+    void supportsQuietHoursAcrossMidnight() {
+        AdaptivePollingInterval interval = new AdaptivePollingInterval(
+                Duration.ofMinutes(15), Duration.ofHours(3), Duration.ofHours(1), 10,
+                LocalTime.of(23, 0), LocalTime.of(6, 0));
+
+        assertThat(interval.isQuiet(LocalTime.of(23, 30))).isTrue();
+        assertThat(interval.isQuiet(LocalTime.of(2, 0))).isTrue();
+        assertThat(interval.isQuiet(LocalTime.of(6, 0))).isFalse();
+        assertThat(interval.isQuiet(LocalTime.of(12, 0))).isFalse();
+    }
+
+    private AdaptivePollingInterval interval() {
+        return new AdaptivePollingInterval(
+                Duration.ofMinutes(15), Duration.ofHours(3), Duration.ofHours(1), 10,
+                LocalTime.of(1, 0), LocalTime.of(6, 0));
+    }
+}
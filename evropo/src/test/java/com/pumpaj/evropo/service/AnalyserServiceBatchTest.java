@@ -0,0 +1,144 @@
+package com.pumpaj.evropo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AnalyserServiceBatchTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PythonWorkerPool workerPool = mock(PythonWorkerPool.class);
+    private final DataProcessingService dataProcessingService = mock(DataProcessingService.class);
+    private final AnalysisCache analysisCache = mock(AnalysisCache.class);
+    private final DuplicateDetector duplicateDetector = mock(DuplicateDetector.class);
+
+    private AnalyserService analyserService;
+
+    @BeforeEach
+    void setUp() {
+        analyserService = new AnalyserService();
+        ReflectionTestUtils.setField(analyserService, "workerPool", workerPool);
+        ReflectionTestUtils.setField(analyserService, "dataProcessingService", dataProcessingService);
+        ReflectionTestUtils.setField(analyserService, "analysisCache", analysisCache);
+        ReflectionTestUtils.setField(analyserService, "duplicateDetector", duplicateDetector);
+        ReflectionTestUtils.setField(analyserService, "llmGuard", new LlmGuard(6000, 10_000_000, 5, 60_000, 4));
+    }
+
+    @Test
+    void demultiplexesBatchResultsById() throws Exception {
+        when(workerPool.execute(argThat(request -> request != null && "analyze_batch".equals(request.path("type").asText()))))
+                .thenReturn(objectMapper.readTree("{\"results\": {\"0\": " + dayAnalysis("2025-03-15")
+                        + ", \"1\": " + dayAnalysis("2025-03-16") + "}}"));
+
+        List<AnalysisOutcome> outcomes = analyserService.analyseBatch(List.of(article("a"), article("b")));
+
+        assertThat(outcomes).containsExactly(AnalysisOutcome.ANALYSED, AnalysisOutcome.ANALYSED);
+        verify(analysisCache).put(eq("text of a"), eq("v1"), argThat(json -> "2025-03-15".equals(json.path("date_of_news_issue").asText())));
+        verify(analysisCache).put(eq("text of b"), eq("v1"), argThat(json -> "2025-03-16".equals(json.path("date_of_news_issue").asText())));
+        verify(dataProcessingService, times(2)).processDayJson(any(), eq("021"));
+        verify(workerPool, times(1)).execute(any());
+    }
+
+    @Test
+    void fallsBackToSingleAnalysisForMissingEntriesOnly() throws Exception {
+        when(workerPool.execute(argThat(request -> request != null && "analyze_batch".equals(request.path("type").asText()))))
+                .thenReturn(objectMapper.readTree("{\"results\": {\"0\": " + dayAnalysis("2025-03-15") + "}}"));
+        when(workerPool.execute(argThat(request -> request != null && "analyze_text".equals(request.path("type").asText()))))
+                .thenReturn(objectMapper.readTree("{\"analysis_result\": " + dayAnalysis("2025-03-16") + "}"));
+
+        List<AnalysisOutcome> outcomes = analyserService.analyseBatch(List.of(article("a"), article("b")));
+
+        assertThat(outcomes).containsExactly(AnalysisOutcome.ANALYSED, AnalysisOutcome.ANALYSED);
+        verify(workerPool).execute(argThat(request -> request != null
+                && "analyze_text".equals(request.path("type").asText())
+                && "text of b".equals(request.path("text").asText())));
+        verify(workerPool, times(2)).execute(any());
+    }
+
+    @Test
+    void analysesEveryArticleAloneWhenTheBatchFails() throws Exception {
+        when(workerPool.execute(argThat(request -> request != null && "analyze_batch".equals(request.path("type").asText()))))
+                .thenThrow(new IOException("Worker error: quota exceeded"));
+        when(workerPool.execute(argThat(request -> request != null && "analyze_text".equals(request.path("type").asText()))))
+                .thenReturn(objectMapper.readTree("{\"analysis_result\": " + dayAnalysis("2025-03-16") + "}"));
+
+        List<AnalysisOutcome> outcomes = analyserService.analyseBatch(List.of(article("a"), article("b"), article("c")));
+
+        assertThat(outcomes).containsOnly(AnalysisOutcome.ANALYSED).hasSize(3);
+        verify(workerPool, times(4)).execute(any());
+    }
+
+    @Test
+    void defersTheWholeBatchWhenTheLlmIsThrottled() throws Exception {
+        when(workerPool.execute(any())).thenThrow(new LlmUnavailableException("Worker error: 429 quota exceeded", true));
+
+        List<AnalysisOutcome> outcomes = analyserService.analyseBatch(List.of(article("a"), article("b")));
+
+        assertThat(outcomes).containsExactly(AnalysisOutcome.DEFERRED, AnalysisOutcome.DEFERRED);
+        verify(workerPool, times(1)).execute(any());
+        verifyNoInteractions(analysisCache, dataProcessingService);
+    }
+
+    @Test
+    void openCircuitDefersTheBatchAndReleasesItsReservations() throws Exception {
+        LlmGuard llmGuard = mock(LlmGuard.class);
+        when(llmGuard.isOpen()).thenReturn(true);
+        ReflectionTestUtils.setField(analyserService, "llmGuard", llmGuard);
+
+        List<AnalysisOutcome> outcomes = analyserService.analyseBatch(List.of(article("a"), article("b")));
+
+        assertThat(outcomes).containsExactly(AnalysisOutcome.DEFERRED, AnalysisOutcome.DEFERRED);
+        // Copies of these articles are analysed or linked on their own rather than waiting for them
+        verify(duplicateDetector).finished("https://www.021.rs/a", false);
+        verify(duplicateDetector).finished("https://www.021.rs/b", false);
+        verify(llmGuard, never()).call(anyInt(), any());
+        verifyNoInteractions(workerPool);
+    }
+
+    @Test
+    void chargesTheBatchOnePromptPlusTheArticleTexts() throws Exception {
+        LlmGuard llmGuard = mock(LlmGuard.class);
+        when(llmGuard.call(anyInt(), any())).thenReturn(objectMapper.readTree("{\"results\": {\"0\": "
+                + dayAnalysis("2025-03-15") + ", \"1\": " + dayAnalysis("2025-03-16") + "}}"));
+        ReflectionTestUtils.setField(analyserService, "llmGuard", llmGuard);
+
+        analyserService.analyseBatch(List.of(
+                new AnalyserService.PendingArticle("https://www.021.rs/a", "021", "x".repeat(4000), "v1"),
+                new AnalyserService.PendingArticle("https://www.021.rs/b", "021", "x".repeat(2000), "v1")));
+
+        verify(llmGuard).call(eq(AnalyserService.PROMPT_TOKENS + 1000 + 500), any());
+    }
+
+    @Test
+    void packsArticlesWithinTokenBudget() {
+        AnalyserService.PendingArticle small = new AnalyserService.PendingArticle("s", "021", "x".repeat(400), "v1");
+        AnalyserService.PendingArticle large = new AnalyserService.PendingArticle("l", "021", "x".repeat(4000), "v1");
+
+        List<List<AnalyserService.PendingArticle>> batches =
+                AnalysisDispatcher.pack(List.of(small, small, large, small, small, small), 1100, 3);
+
+        assertThat(batches).extracting(List::size).containsExactly(2, 1, 3);
+    }
+
+    private AnalyserService.PendingArticle article(String name) {
+        return new AnalyserService.PendingArticle("https://www.021.rs/" + name, "021", "text of " + name, "v1");
+    }
+
+    private String dayAnalysis(String date) {
+        ObjectNode analysis = objectMapper.createObjectNode();
+        analysis.putObject("analysis").put("mentions_protest", false);
+        analysis.put("date_of_news_issue", date);
+        analysis.put("state_driven_messaging", 2);
+        analysis.put("pro_student_messaging", 7);
+        return analysis.toString();
+    }
+}
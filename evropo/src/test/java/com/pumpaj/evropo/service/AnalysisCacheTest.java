@@ -0,0 +1,170 @@
+package com.pumpaj.evropo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mongodb.client.MongoDatabase;
+import com.pumpaj.evropo.model.AnalysisCacheEntry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AnalysisCacheTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    // Stands in for the analysis_cache collection
+    private final Map<String, AnalysisCacheEntry> entries = new HashMap<>();
+    private final AnalysisCache cache = new AnalysisCache();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(cache, "ttlDays", 30L);
+        ReflectionTestUtils.setField(cache, "maxEntries", 3L);
+        when(mongoTemplate.save(any(AnalysisCacheEntry.class))).thenAnswer(invocation -> {
+            AnalysisCacheEntry entry = invocation.getArgument(0);
+            entries.put(entry.getId(), entry);
+            return entry;
+        });
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(AnalysisCacheEntry.class)))
+                .thenAnswer(invocation -> entries.get(((Query) invocation.getArgument(0)).getQueryObject().getString("_id")));
+    }
+
+    @Test
+    void hitsTheAnalysisOfTheSameTextAndPromptVersion() throws Exception {
+        ObjectNode analysis = (ObjectNode) new ObjectMapper().readTree("{\"analysis\": {\"mentions_protest\": true}}");
+        cache.put("Studenti su blokirali raskrsnicu.", "v1", analysis);
+
+        assertThat(cache.get("Studenti  su blokirali\nraskrsnicu.", "v1")).contains(analysis);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isZero();
+    }
+
+    @Test
+    void missesAfterThePromptVersionChanges() throws Exception {
+        cache.put("Studenti su blokirali raskrsnicu.", "v1", new ObjectMapper().createObjectNode());
+
+        assertThat(cache.get("Studenti su blokirali raskrsnicu.", "v2")).isEmpty();
+        assertThat(cache.get("Drugi tekst", "v1")).isEmpty();
+        assertThat(cache.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void dropsUnreadableEntries() {
+        entries.put(AnalysisCache.contentHash("text") + ":v1",
+                new AnalysisCacheEntry(AnalysisCache.contentHash("text"), "v1", "[1, 2]"));
+
+        assertThat(cache.get("text", "v1")).isEmpty();
+        verify(mongoTemplate).remove(any(Query.class), eq(AnalysisCacheEntry.class));
+    }
+
+    @Test
+    void changesTheTtlOfAnExistingIndexInPlace() {
+        IndexOperations indexOperations = mock(IndexOperations.class);
+        when(mongoTemplate.indexOps(AnalysisCacheEntry.class)).thenReturn(indexOperations);
+        when(indexOperations.getIndexInfo()).thenReturn(List.of(IndexInfo.indexInfoOf(new Document("name", "createdAt_ttl")
+                .append("key", new Document("createdAt", 1))
+                .append("expireAfterSeconds", 7L * 24 * 60 * 60))));
+        MongoDatabase db = mock(MongoDatabase.class);
+        when(mongoTemplate.getDb()).thenReturn(db);
+        when(mongoTemplate.getCollectionName(AnalysisCacheEntry.class)).thenReturn("analysis_cache");
+
+        cache.ensureIndexes();
+
+        verify(db).runCommand(new Document("collMod", "analysis_cache")
+                .append("index", new Document("name", "createdAt_ttl").append("expireAfterSeconds", 30L * 24 * 60 * 60)));
+        verify(indexOperations, times(2)).ensureIndex(any(IndexDefinition.class));
+    }
+
+    @Test
+    void keepsAnUnchangedTtlIndex() {
+        IndexOperations indexOperations = mock(IndexOperations.class);
+        when(mongoTemplate.indexOps(AnalysisCacheEntry.class)).thenReturn(indexOperations);
+        when(indexOperations.getIndexInfo()).thenReturn(List.of(IndexInfo.indexInfoOf(new Document("name", "createdAt_ttl")
+                .append("key", new Document("createdAt", 1))
+                .append("expireAfterSeconds", 30L * 24 * 60 * 60))));
+
+        cache.ensureIndexes();
+
+        verify(mongoTemplate, never()).getDb();
+    }
+
+    @Test
+    void expiresEntriesAfterTheTtl() {
+        IndexOperations indexOperations = mock(IndexOperations.class);
+        when(mongoTemplate.indexOps(AnalysisCacheEntry.class)).thenReturn(indexOperations);
+
+        cache.ensureIndexes();
+
+        ArgumentCaptor<IndexDefinition> indexes = ArgumentCaptor.forClass(IndexDefinition.class);
+        verify(indexOperations, times(2)).ensureIndex(indexes.capture());
+        IndexDefinition ttl = indexes.getAllValues().get(0);
+        assertThat(ttl.getIndexKeys()).containsEntry("createdAt", 1);
+        assertThat(ttl.getIndexOptions()).containsEntry("expireAfterSeconds", 30L * 24 * 60 * 60);
+    }
+
+    @Test
+    void trimsTheLeastRecentlyHitEntriesAboveTheMaximum() {
+        when(mongoTemplate.estimatedCount(AnalysisCacheEntry.class)).thenReturn(5L);
+        AnalysisCacheEntry oldest = new AnalysisCacheEntry("a", "v1", "{}");
+        AnalysisCacheEntry older = new AnalysisCacheEntry("b", "v1", "{}");
+        when(mongoTemplate.find(any(Query.class), eq(AnalysisCacheEntry.class))).thenReturn(List.of(oldest, older));
+
+        cache.trim();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(AnalysisCacheEntry.class));
+        assertThat(query.getValue().getLimit()).isEqualTo(2);
+        assertThat(query.getValue().getSortObject()).isEqualTo(new Document("lastHitAt", 1));
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(removed.capture(), eq(AnalysisCacheEntry.class));
+        assertThat(removed.getValue().getQueryObject())
+                .isEqualTo(new Document("_id", new Document("$in", List.of("a:v1", "b:v1"))));
+    }
+
+    @Test
+    void leavesTheCacheAloneBelowTheMaximum() {
+        when(mongoTemplate.estimatedCount(AnalysisCacheEntry.class)).thenReturn(3L);
+
+        cache.trim();
+
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(AnalysisCacheEntry.class));
+    }
+
+    @Test
+    void hashIgnoresWhitespaceDifferences() {
+        assertThat(AnalysisCache.contentHash("Studenti  su\nblokirali\traskrsnicu. "))
+                .isEqualTo(AnalysisCache.contentHash("Studenti su blokirali raskrsnicu."));
+    }
+
+    @Test
+    void hashIgnoresUnicodeNormalizationForm() {
+        // "š" precomposed and as "s" followed by a combining caron
+        assertThat(AnalysisCache.contentHash("šetnja")).isEqualTo(AnalysisCache.contentHash("šetnja"));
+    }
+
+    @Test
+    void hashChangesWithTheText() {
+        assertThat(AnalysisCache.contentHash("Protest u Novom Sadu"))
+                .isNotEqualTo(AnalysisCache.contentHash("Protest u Nišu"))
+                .hasSize(64);
+    }
+}
@@ -0,0 +1,67 @@
+package com.pumpaj.evropo.service;
+
+import com.pumpaj.evropo.model.SearchHit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArticleSearchIndexTest {
+
+    @TempDir
+    Path indexPath;
+
+    private ArticleSearchIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        index = new ArticleSearchIndex(indexPath.toString());
+        index.indexTitle("https://www.021.rs/setnja", "021.rs", "Šetnja studenata do Trga slobode");
+        index.indexTitle("https://informer.rs/beograd", "informer.rs", "Blokada raskrsnice u Beogradu");
+        index.indexTitle("https://informer.rs/setnja", "informer.rs", "Шетњом до Новог Сада");
+        index.indexTitle("https://www.021.rs/prognoza", "021.rs", "Vremenska prognoza za vikend");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        index.close();
+    }
+
+    @Test
+    void findsWordsWhateverTheirScriptDiacriticsOrCase() throws Exception {
+        assertThat(index.search("šetnja", null, 10)).extracting(SearchHit::getUrl)
+                .containsExactlyInAnyOrder("https://www.021.rs/setnja", "https://informer.rs/setnja");
+        assertThat(index.search("setnje", null, 10)).extracting(SearchHit::getUrl)
+                .containsExactlyInAnyOrder("https://www.021.rs/setnja", "https://informer.rs/setnja");
+        assertThat(index.search("шетњом", null, 10)).extracting(SearchHit::getUrl)
+                .containsExactlyInAnyOrder("https://www.021.rs/setnja", "https://informer.rs/setnja");
+    }
+
+    @Test
+    void findsCaseFormsOfANameByItsStem() throws Exception {
+        assertThat(index.search("Beograd", null, 10)).extracting(SearchHit::getUrl)
+                .containsExactly("https://informer.rs/beograd");
+        assertThat(index.search("Beogradu", null, 10)).extracting(SearchHit::getUrl)
+                .containsExactly("https://informer.rs/beograd");
+    }
+
+    @Test
+    void filtersBySourceAndKeepsTitlesWhenTheBodyArrives() throws Exception {
+        index.indexBody("https://www.021.rs/prognoza", "021.rs", "Studenti najavili novu šetnju za subotu.");
+
+        assertThat(index.search("šetnja", "021.rs", 10)).extracting(SearchHit::getUrl)
+                .containsExactlyInAnyOrder("https://www.021.rs/setnja", "https://www.021.rs/prognoza");
+        assertThat(index.search("prognoza", null, 10)).extracting(SearchHit::getTitle)
+                .containsExactly("Vremenska prognoza za vikend");
+    }
+
+    @Test
+    void searchesUnparsableQueriesAsPlainText() throws Exception {
+        assertThat(index.search("blokada AND (", null, 10)).extracting(SearchHit::getUrl)
+                .containsExactly("https://informer.rs/beograd");
+    }
+}
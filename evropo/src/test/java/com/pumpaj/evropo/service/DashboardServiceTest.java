@@ -0,0 +1,162 @@
+package com.pumpaj.evropo.service;
+
+import com.pumpaj.evropo.model.DashboardPage;
+import com.pumpaj.evropo.model.DayRollup;
+import com.pumpaj.evropo.model.Protest;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
+import org.springframework.data.mongodb.core.query.GeoCommand;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DashboardServiceTest {
+
+    private static final Instant MARCH_15 = Instant.parse("2025-03-15T00:00:00Z");
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final DashboardService dashboardService = new DashboardService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(dashboardService, "mongoTemplate", mongoTemplate);
+    }
+
+    @Test
+    void pagesProtestsWithACursorAfterTheLastItem() {
+        when(mongoTemplate.find(any(Query.class), eq(Protest.class)))
+                .thenReturn(List.of(protest("a1"), protest("a2"), protest("a3")));
+
+        DashboardPage<Protest> page = dashboardService.findProtests(
+                MARCH_15, null, "s&o", null, List.of("location", "count"), null, 2);
+
+        assertThat(page.getItems()).extracting(Protest::getId).containsExactly("a1", "a2");
+        assertThat(page.getNextCursor()).isNotNull();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Protest.class));
+        assertThat(query.getValue().getLimit()).isEqualTo(3);
+        assertThat(query.getValue().getFieldsObject()).containsOnlyKeys("date", "location", "count");
+        assertThat(query.getValue().getSortObject()).isEqualTo(new Document("date", 1).append("id", 1));
+
+        dashboardService.findProtests(MARCH_15, null, "s&o", null, List.of(), page.getNextCursor(), 2);
+
+        verify(mongoTemplate, times(2)).find(query.capture(), eq(Protest.class));
+        List<Document> and = query.getValue().getQueryObject().getList("$and", Document.class);
+        assertThat(and).contains(new Document("$or", List.of(
+                new Document("date", new Document("$gt", MARCH_15)),
+                new Document("date", MARCH_15).append("id", new Document("$gt", "a2")))));
+        assertThat(query.getValue().getFieldsObject()).isEmpty();
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        when(mongoTemplate.find(any(Query.class), eq(Protest.class))).thenReturn(List.of(protest("a1")));
+
+        DashboardPage<Protest> page = dashboardService.findProtests(null, null, null, null, List.of(), null, 2);
+
+        assertThat(page.getItems()).hasSize(1);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void cursorsKeepMissingSources() {
+        DashboardService.Cursor cursor = DashboardService.Cursor.decode(
+                new DashboardService.Cursor(MARCH_15, null).encode());
+
+        assertThat(cursor.after("start", "source").getCriteriaObject()).isEqualTo(new Document("$or", List.of(
+                new Document("start", new Document("$gt", MARCH_15)),
+                new Document("start", MARCH_15).append("source", new Document("$ne", null)))));
+        assertThatThrownBy(() -> DashboardService.Cursor.decode("not a cursor"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void weeksAndMonthsReadTheRollups() {
+        dashboardService.findDays(MARCH_15, null, "021.rs", "week", List.of("studentMentions"), null, 10);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(DayRollup.class), eq("days_weekly"));
+        assertThat(query.getValue().getFieldsObject()).containsOnlyKeys("start", "source", "studentMentions");
+    }
+
+    @Test
+    void viewportQueriesUseGeoWithinOnThePosition() {
+        when(mongoTemplate.find(any(Query.class), eq(Protest.class))).thenReturn(List.of(protest("a1")));
+
+        dashboardService.findProtestsWithin(19.7, 45.2, 19.95, 45.3, null, null, null, List.of(), null, 10);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Protest.class));
+        Document within = position(query.getValue()).get("$geoWithin", Document.class);
+        GeoCommand box = (GeoCommand) within.get("$geometry");
+        assertThat(((GeoJsonPolygon) box.getShape()).getPoints()).containsExactly(
+                new Point(19.7, 45.2), new Point(19.95, 45.2), new Point(19.95, 45.3),
+                new Point(19.7, 45.3), new Point(19.7, 45.2));
+    }
+
+    @Test
+    void radiusQueriesUseNearInMetersWithoutPaging() {
+        when(mongoTemplate.find(any(Query.class), eq(Protest.class))).thenReturn(List.of(protest("a1"), protest("a2")));
+
+        DashboardPage<Protest> page = dashboardService.findProtestsNear(
+                new GeoJsonPoint(19.8335, 45.2671), 30, null, null, null, List.of(), 2);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Protest.class));
+        assertThat(position(query.getValue()).get("$near", Document.class))
+                .containsEntry("$geometry", new GeoJsonPoint(19.8335, 45.2671))
+                .containsEntry("$maxDistance", 30000.0);
+        assertThat(query.getValue().getSortObject()).isEmpty();
+        assertThat(page.getItems()).hasSize(2);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void rejectsBoxesThatAreNotLongitudeAndLatitude() {
+        assertThatThrownBy(() -> dashboardService.findProtestsWithin(45.3, 19.7, 45.2, 19.95, null, null, null, List.of(), null, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> dashboardService.findProtestsWithin(19.7, 95, 19.95, 96, null, null, null, List.of(), null, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void rejectsUnknownFieldsAndPeriods() {
+        assertThatThrownBy(() -> dashboardService.findProtests(null, null, null, null, List.of("_id.secret"), null, 10))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unknown field");
+        assertThatThrownBy(() -> dashboardService.findDays(null, null, null, "year", List.of(), null, 10))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unknown period");
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    private static Document position(Query query) {
+        return query.getQueryObject().getList("$and", Document.class).stream()
+                .filter(criteria -> criteria.containsKey("position"))
+                .findFirst().orElseThrow()
+                .get("position", Document.class);
+    }
+
+    private static Protest protest(String id) {
+        Protest protest = new Protest();
+        protest.setId(id);
+        protest.setDate(MARCH_15);
+        return protest;
+    }
+}
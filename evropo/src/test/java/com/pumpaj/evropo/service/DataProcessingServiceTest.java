@@ -0,0 +1,179 @@
+package com.pumpaj.evropo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.pumpaj.evropo.model.Protest;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DataProcessingServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final DayMetricsBuffer dayMetricsBuffer = mock(DayMetricsBuffer.class);
+    private final DayMetricsWriter dayMetricsWriter = mock(DayMetricsWriter.class);
+    private final DataVersions dataVersions = new DataVersions();
+    private final ProtestKeyResolver protestKeyResolver = new ProtestKeyResolver();
+    private final DataProcessingService dataProcessingService =
+            new DataProcessingService(mongoTemplate, dayMetricsBuffer, dayMetricsWriter, dataVersions, protestKeyResolver, false);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Gazetteer gazetteer = new Gazetteer();
+        ReflectionTestUtils.setField(gazetteer, "location", new ClassPathResource("gazetteer/places.tsv"));
+        gazetteer.load();
+        ReflectionTestUtils.setField(protestKeyResolver, "gazetteer", gazetteer);
+    }
+
+    @Test
+    void writesDayRightAwayWhenUnbuffered() throws Exception {
+        ObjectNode dayJson = (ObjectNode) objectMapper.readTree("{\"date\": \"15.3.2025.\", "
+                + "\"state_driven_messaging\": 2, \"pro_student_messaging\": 7, "
+                + "\"student_mentions\": {\"good_count\": 3, \"bad_count\": 1}, "
+                + "\"state_mentions\": {\"good_count\": 0, \"bad_count\": 4}, "
+                + "\"propaganda_count\": 1, \"pro_protest_count\": 2}");
+
+        dataProcessingService.processDayJson(dayJson, "021");
+
+        Map<String, Integer> expected = new LinkedHashMap<>();
+        expected.put("stateDrivenMessaging", 2);
+        expected.put("proStudentMessaging", 7);
+        expected.put("studentMentions.goodCount", 3);
+        expected.put("studentMentions.badCount", 1);
+        expected.put("stateMentions.goodCount", 0);
+        expected.put("stateMentions.badCount", 4);
+        expected.put("propagandaCount", 1);
+        expected.put("proProtestCount", 2);
+        verify(dayMetricsWriter).write(Instant.parse("2025-03-15T00:00:00Z"), "021", expected);
+        verifyNoInteractions(dayMetricsBuffer);
+    }
+
+    @Test
+    void parsesDatesIntoMidnightUtc() {
+        Instant march15 = Instant.parse("2025-03-15T00:00:00Z");
+
+        assertThat(DataProcessingService.parseDate("2025-03-15")).contains(march15);
+        assertThat(DataProcessingService.parseDate("2025-03-15 00:00:00")).contains(march15);
+        assertThat(DataProcessingService.parseDate("15.3.2025.")).contains(march15);
+        assertThat(DataProcessingService.parseDate("15.03.2025")).contains(march15);
+        assertThat(DataProcessingService.parseDate("31.2.2025")).isEmpty();
+        assertThat(DataProcessingService.parseDate("sredina marta")).isEmpty();
+    }
+
+    @Test
+    void skipsNullAndMissingValues() throws Exception {
+        ObjectNode dayJson = (ObjectNode) objectMapper.readTree("{\"date\": \"2025-03-15\", "
+                + "\"state_driven_messaging\": null, \"student_mentions\": {\"good_count\": 3}}");
+
+        assertThat(DataProcessingService.dayIncrements(dayJson)).containsOnlyKeys("studentMentions.goodCount");
+    }
+
+    @Test
+    void handsDayIncrementsToTheBufferWhenEnabled() throws Exception {
+        DataProcessingService buffered = new DataProcessingService(
+                mongoTemplate, dayMetricsBuffer, dayMetricsWriter, dataVersions, protestKeyResolver, true);
+        ObjectNode dayJson = (ObjectNode) objectMapper.readTree("{\"date\": \"2025-03-15\", \"propaganda_count\": 1}");
+
+        buffered.processDayJson(dayJson, "021");
+
+        verify(dayMetricsBuffer).add(Instant.parse("2025-03-15T00:00:00Z"), "021", Map.of("propagandaCount", 1));
+        verifyNoInteractions(mongoTemplate, dayMetricsWriter);
+    }
+
+    @Test
+    void skipsDayWithoutDate() {
+        dataProcessingService.processDayJson(objectMapper.createObjectNode().put("propaganda_count", 1), "021");
+
+        verifyNoInteractions(mongoTemplate, dayMetricsBuffer, dayMetricsWriter);
+    }
+
+    @Test
+    void fillsOnlyMissingProtestFieldsInOneUpsert() throws Exception {
+        when(mongoTemplate.upsert(any(Query.class), any(AggregationUpdate.class), eq(Protest.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        ObjectNode protestJson = (ObjectNode) objectMapper.readTree("{\"organizer\": \"s&o\", "
+                + "\"location\": \"Novi Sad\", \"date\": \"2025-03-15\", "
+                + "\"count\": {\"government\": null, \"independent\": 20000}, \"x\": 45.25, \"y\": 19.84}");
+
+        String etagBefore = dataVersions.etag(Protest.class);
+
+        dataProcessingService.processProtestJson(protestJson);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<AggregationUpdate> update = ArgumentCaptor.forClass(AggregationUpdate.class);
+        verify(mongoTemplate).upsert(query.capture(), update.capture(), eq(Protest.class));
+        verifyNoMoreInteractions(mongoTemplate);
+
+        assertThat(query.getValue().getQueryObject())
+                .containsEntry("organizer", "s&o")
+                .containsEntry("locationId", Gazetteer.key("Novi Sad"))
+                .containsEntry("date", Instant.parse("2025-03-15T00:00:00Z"));
+        List<Document> pipeline = update.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertThat(pipeline).hasSize(1);
+        assertThat(pipeline.get(0).get("$set", Document.class))
+                .containsOnlyKeys("location", "count.independent", "x", "y", "position")
+                .containsEntry("location", new Document("$ifNull", Arrays.asList("$location", "Novi Sad")))
+                .containsEntry("count.independent", new Document("$ifNull", Arrays.asList("$count.independent", 20000)))
+                .containsEntry("x", new Document("$ifNull", Arrays.asList("$x", 45.25)))
+                .containsEntry("position", new Document("$ifNull", Arrays.asList("$position", new Document("$literal",
+                        new Document("type", "Point").append("coordinates", List.of(19.84, 45.25))))));
+        assertThat(dataVersions.etag(Protest.class)).isNotEqualTo(etagBefore);
+    }
+
+    @Test
+    void retriesProtestUpsertThatLostTheInsertRace() throws Exception {
+        when(mongoTemplate.upsert(any(Query.class), any(AggregationUpdate.class), eq(Protest.class)))
+                .thenThrow(new DuplicateKeyException("E11000 organizer_location_id_date_idx"))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        ObjectNode protestJson = (ObjectNode) objectMapper.readTree("{\"organizer\": \"gov\", "
+                + "\"location\": \"Beograd\", \"date\": \"15.3.2025\", \"count\": {\"government\": 35000}}");
+
+        dataProcessingService.processProtestJson(protestJson);
+
+        verify(mongoTemplate, times(2)).upsert(any(Query.class), any(AggregationUpdate.class), eq(Protest.class));
+    }
+
+    @Test
+    void keysProtestsOnTheCanonicalOrganizerPlaceAndDay() throws Exception {
+        when(mongoTemplate.upsert(any(Query.class), any(AggregationUpdate.class), eq(Protest.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        dataProcessingService.processProtestJson((ObjectNode) objectMapper.readTree(
+                "{\"organizer\": \"S&O\", \"location\": \"Beograd\", \"date\": \"2025-03-15\"}"));
+        dataProcessingService.processProtestJson((ObjectNode) objectMapper.readTree(
+                "{\"organizer\": \"Studenti i građani\", \"location\": \"Belgrade\", \"date\": \"15.3.2025.\"}"));
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).upsert(queries.capture(), any(AggregationUpdate.class), eq(Protest.class));
+        assertThat(queries.getAllValues().get(1).getQueryObject()).isEqualTo(queries.getAllValues().get(0).getQueryObject());
+    }
+
+    @Test
+    void skipsProtestWithUnclearOrganizer() throws Exception {
+        dataProcessingService.processProtestJson((ObjectNode) objectMapper.readTree(
+                "{\"organizer\": \"nepoznato\", \"location\": \"Beograd\", \"date\": \"2025-03-15\"}"));
+
+        verifyNoInteractions(mongoTemplate);
+    }
+}
@@ -0,0 +1,193 @@
+package com.pumpaj.evropo.service;
+
+import com.pumpaj.evropo.model.Day;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DayMetricsBufferTest {
+
+    @TempDir
+    Path walDirectory;
+
+    private static final Instant MARCH_15 = Instant.parse("2025-03-15T00:00:00Z");
+    private static final Instant MARCH_16 = Instant.parse("2025-03-16T00:00:00Z");
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BulkOperations bulkOperations = mock(BulkOperations.class);
+    private final DayMetricsWriter dayMetricsWriter = new DayMetricsWriter();
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.getCollectionName(Day.class)).thenReturn("days");
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), anyString())).thenReturn(bulkOperations);
+        ReflectionTestUtils.setField(dayMetricsWriter, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(dayMetricsWriter, "dataVersions", new DataVersions());
+    }
+
+    @Test
+    void flushesConcurrentIncrementsAsOneMeasurementPerDayAndSource() throws Exception {
+        DayMetricsBuffer buffer = buffer(10_000);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 400; i++) {
+            Instant date = i % 2 == 0 ? MARCH_15 : MARCH_16;
+            String source = i % 4 < 2 ? "021" : "informer";
+            executor.submit(() -> buffer.add(date, source, Map.of("propagandaCount", 1, "studentMentions.goodCount", 2)));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        buffer.flush();
+
+        Document expected = new Document("propagandaCount", 100L).append("studentMentions", new Document("goodCount", 200L));
+        assertThat(flushedMeasurements()).containsOnly(
+                Map.entry("2025-03-15T00:00:00Z/021", expected),
+                Map.entry("2025-03-15T00:00:00Z/informer", expected),
+                Map.entry("2025-03-16T00:00:00Z/021", expected),
+                Map.entry("2025-03-16T00:00:00Z/informer", expected));
+        verify(mongoTemplate, times(1)).insert(anyCollection(), eq("days"));
+        assertThat(segments()).hasSize(1);
+    }
+
+    @Test
+    void flushesOnceMaxPendingIsReached() throws Exception {
+        DayMetricsBuffer buffer = buffer(3);
+
+        buffer.add(MARCH_15, "021", Map.of("propagandaCount", 1));
+        buffer.add(MARCH_15, "021", Map.of("propagandaCount", 1));
+        verify(mongoTemplate, never()).insert(anyCollection(), anyString());
+
+        buffer.add(MARCH_15, "021", Map.of("propagandaCount", 1));
+        verify(mongoTemplate, times(1)).insert(anyCollection(), eq("days"));
+    }
+
+    @Test
+    void replaysTheLogLeftByACrash() throws Exception {
+        DayMetricsBuffer crashed = buffer(10_000);
+        crashed.add(MARCH_15, "021", Map.of("stateMentions.badCount", 4));
+        crashed.add(MARCH_15, "021", Map.of("stateMentions.badCount", 1, "propagandaCount", 1));
+        // No flush and no close, as if the process died here
+        verify(mongoTemplate, never()).insert(anyCollection(), anyString());
+
+        buffer(10_000);
+
+        assertThat(flushedMeasurements()).containsOnly(Map.entry("2025-03-15T00:00:00Z/021",
+                new Document("stateMentions", new Document("badCount", 5L)).append("propagandaCount", 1L)));
+        assertThat(segments()).hasSize(1);
+    }
+
+    @Test
+    void replaysEntriesWrittenBeforeDatesWereParsed() throws Exception {
+        Files.writeString(walDirectory.resolve("day-metrics-7.wal"),
+                "{\"date\":\"2025-03-15 00:00:00\",\"inc\":{\"proProtestCount\":3}}\n");
+
+        buffer(10_000);
+
+        assertThat(flushedMeasurements()).containsOnly(Map.entry("2025-03-15T00:00:00Z/null",
+                new Document("proProtestCount", 3L)));
+    }
+
+    @Test
+    void keepsTheSegmentUntilAFlushSucceeds() throws Exception {
+        DayMetricsBuffer buffer = buffer(10_000);
+        buffer.add(MARCH_15, "021", Map.of("propagandaCount", 1));
+
+        doThrow(new RuntimeException("not primary")).doReturn(null).when(mongoTemplate).insert(anyCollection(), eq("days"));
+        buffer.flush();
+        assertThat(segments()).hasSize(2);
+
+        buffer.flush();
+        assertThat(segments()).hasSize(1);
+        verify(mongoTemplate, times(2)).insert(anyCollection(), eq("days"));
+    }
+
+    @Test
+    void replayAfterAPartialFlushReusesTheBatchIdAndItsProgress() throws Exception {
+        DayMetricsBuffer crashed = buffer(10_000);
+        crashed.add(MARCH_15, "021", Map.of("propagandaCount", 1));
+        doThrow(new RuntimeException("not primary")).when(bulkOperations).execute();
+        crashed.flush();
+        String batchId = flushedBatchIds().get(0);
+        // Process dies here, the measurement is in, the rollups are not
+        reset(bulkOperations);
+
+        buffer(10_000);
+
+        verify(mongoTemplate, times(1)).insert(anyCollection(), eq("days"));
+        ArgumentCaptor<org.springframework.data.mongodb.core.query.Query> rollups =
+                ArgumentCaptor.forClass(org.springframework.data.mongodb.core.query.Query.class);
+        verify(bulkOperations, times(2)).upsert(rollups.capture(), any(org.springframework.data.mongodb.core.query.Update.class));
+        assertThat(rollups.getAllValues()).allSatisfy(query ->
+                assertThat(query.getQueryObject().get("batches")).isEqualTo(new Document("$ne", batchId)));
+        try (Stream<Path> files = Files.list(walDirectory)) {
+            assertThat(files.map(file -> file.getFileName().toString()).toList()).containsExactly("day-metrics-3.wal");
+        }
+    }
+
+    private DayMetricsBuffer buffer(int maxPending) throws Exception {
+        DayMetricsBuffer buffer = new DayMetricsBuffer();
+        ReflectionTestUtils.setField(buffer, "dayMetricsWriter", dayMetricsWriter);
+        ReflectionTestUtils.setField(buffer, "walPath", walDirectory.toString());
+        ReflectionTestUtils.setField(buffer, "maxPending", maxPending);
+        buffer.open();
+        return buffer;
+    }
+
+    // Fields of every inserted measurement, keyed by date/source
+    @SuppressWarnings("unchecked")
+    private Map<String, Document> flushedMeasurements() {
+        ArgumentCaptor<Collection<Document>> inserts = ArgumentCaptor.forClass(Collection.class);
+        verify(mongoTemplate, atLeastOnce()).insert(inserts.capture(), eq("days"));
+
+        Map<String, Document> measurements = new HashMap<>();
+        for (Collection<Document> insert : inserts.getAllValues()) {
+            for (Document measurement : insert) {
+                Document fields = new Document(measurement);
+                String key = ((Date) fields.remove("date")).toInstant() + "/" + fields.remove("source");
+                fields.remove("batch");
+                measurements.put(key, fields);
+            }
+        }
+        return measurements;
+    }
+
+    private List<Path> segments() throws Exception {
+        try (Stream<Path> files = Files.list(walDirectory)) {
+            return files.filter(file -> file.toString().endsWith(".wal")).toList();
+        }
+    }
+
+    // Batch id of every inserted measurement
+    @SuppressWarnings("unchecked")
+    private List<String> flushedBatchIds() {
+        ArgumentCaptor<Collection<Document>> inserts = ArgumentCaptor.forClass(Collection.class);
+        verify(mongoTemplate, atLeastOnce()).insert(inserts.capture(), eq("days"));
+        return inserts.getAllValues().stream().flatMap(Collection::stream).map(m -> m.getString("batch")).toList();
+    }
+}
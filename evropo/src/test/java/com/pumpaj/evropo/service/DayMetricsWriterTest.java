@@ -0,0 +1,191 @@
+package com.pumpaj.evropo.service;
+
+import com.pumpaj.evropo.model.Day;
+import com.pumpaj.evropo.service.DayMetricsWriter.DayKey;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DayMetricsWriterTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BulkOperations weekly = mock(BulkOperations.class);
+    private final BulkOperations monthly = mock(BulkOperations.class);
+    private final DayMetricsWriter writer = new DayMetricsWriter();
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.getCollectionName(Day.class)).thenReturn("days");
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq("days_weekly"))).thenReturn(weekly);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq("days_monthly"))).thenReturn(monthly);
+        ReflectionTestUtils.setField(writer, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(writer, "dataVersions", new DataVersions());
+    }
+
+    @Test
+    void periodsStartOnMondayAndOnTheFirstOfTheMonthInUtc() {
+        Instant sunday = Instant.parse("2025-03-16T00:00:00Z");
+
+        assertThat(RollupPeriod.WEEK.startOf(sunday)).isEqualTo(Instant.parse("2025-03-10T00:00:00Z"));
+        assertThat(RollupPeriod.WEEK.startOf(Instant.parse("2025-03-17T00:00:00Z")))
+                .isEqualTo(Instant.parse("2025-03-17T00:00:00Z"));
+        assertThat(RollupPeriod.MONTH.startOf(sunday)).isEqualTo(Instant.parse("2025-03-01T00:00:00Z"));
+    }
+
+    @Test
+    void insertsMeasurementsAndCollapsesDaysIntoOneUpsertPerPeriodAndSource() {
+        Map<DayKey, Map<String, Long>> counts = new HashMap<>();
+        counts.put(new DayKey(Instant.parse("2025-03-15T00:00:00Z"), "021.rs"),
+                Map.of("propagandaCount", 1L, "studentMentions.goodCount", 3L));
+        counts.put(new DayKey(Instant.parse("2025-03-16T00:00:00Z"), "021.rs"), Map.of("propagandaCount", 2L));
+        counts.put(new DayKey(Instant.parse("2025-03-17T00:00:00Z"), "021.rs"), Map.of("propagandaCount", 4L));
+        counts.put(new DayKey(Instant.parse("2025-03-16T00:00:00Z"), "informer.rs"), Map.of("propagandaCount", 8L));
+
+        writer.write("batch-1", counts, new HashSet<>());
+
+        verify(mongoTemplate).insert(argThat((Collection<Document> measurements) -> measurements.size() == 4
+                && measurements.contains(new Document("date", Date.from(Instant.parse("2025-03-15T00:00:00Z")))
+                        .append("source", "021.rs")
+                        .append("propagandaCount", 1L)
+                        .append("studentMentions", new Document("goodCount", 3L))
+                        .append("batch", "batch-1"))), eq("days"));
+
+        assertThat(upserts(weekly)).containsOnly(
+                Map.entry("021.rs/2025-03-10T00:00:00Z", new Document("propagandaCount", 3L).append("studentMentions.goodCount", 3L)),
+                Map.entry("021.rs/2025-03-17T00:00:00Z", new Document("propagandaCount", 4L)),
+                Map.entry("informer.rs/2025-03-10T00:00:00Z", new Document("propagandaCount", 8L)));
+        assertThat(upserts(monthly)).containsOnly(
+                Map.entry("021.rs/2025-03-01T00:00:00Z", new Document("propagandaCount", 7L).append("studentMentions.goodCount", 3L)),
+                Map.entry("informer.rs/2025-03-01T00:00:00Z", new Document("propagandaCount", 8L)));
+    }
+
+    @Test
+    void retryAfterAFailedRollupSkipsWhatWasAlreadyWritten() {
+        Map<DayKey, Map<String, Long>> counts = Map.of(
+                new DayKey(Instant.parse("2025-03-15T00:00:00Z"), "021.rs"), Map.of("proProtestCount", 1L));
+        when(monthly.execute()).thenThrow(new RuntimeException("not primary")).thenReturn(null);
+        Set<String> written = new HashSet<>();
+
+        assertThatThrownBy(() -> writer.write("batch-1", counts, written)).hasMessage("not primary");
+        assertThat(written).containsExactlyInAnyOrder("days", "days_weekly");
+
+        writer.write("batch-1", counts, written);
+
+        verify(mongoTemplate, times(1)).insert(anyCollection(), eq("days"));
+        verify(weekly, times(1)).execute();
+        verify(monthly, times(2)).execute();
+        assertThat(written).containsExactlyInAnyOrder("days", "days_weekly", "days_monthly");
+    }
+
+    @Test
+    void upsertsOnlyRollupsWithoutTheBatchAndRememberIt() {
+        writer.write("batch-1", Map.of(new DayKey(Instant.parse("2025-03-15T00:00:00Z"), "021.rs"), Map.of("proProtestCount", 1L)),
+                new HashSet<>());
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(weekly).upsert(query.capture(), update.capture());
+        assertThat(query.getValue().getQueryObject().get("batches")).isEqualTo(new Document("$ne", "batch-1"));
+        Update.Modifiers push = (Update.Modifiers) update.getValue().getUpdateObject().get("$push", Document.class).get("batches");
+        assertThat(push.getModifiers()).extracting(Update.Modifier::getKey, modifier -> modifier.getValue() instanceof Object[] values
+                        ? List.of(values) : modifier.getValue())
+                .containsExactlyInAnyOrder(tuple("$each", List.of("batch-1")), tuple("$slice", -DayMetricsWriter.KEPT_BATCH_IDS));
+    }
+
+    @Test
+    void keepsCountsBeyondTheIntRange() {
+        long count = Integer.MAX_VALUE + 5L;
+        writer.write("batch-1", Map.of(new DayKey(Instant.parse("2025-03-15T00:00:00Z"), "021.rs"), Map.of("proProtestCount", count)),
+                new HashSet<>());
+
+        verify(mongoTemplate).insert(argThat((Collection<Document> measurements) ->
+                measurements.iterator().next().get("proProtestCount").equals(count)), eq("days"));
+        assertThat(upserts(weekly)).containsOnly(Map.entry("021.rs/2025-03-10T00:00:00Z", new Document("proProtestCount", count)));
+    }
+
+    @Test
+    void rewritingABatchOnlyInsertsTheMeasurementsItIsMissing() {
+        Instant march15 = Instant.parse("2025-03-15T00:00:00Z");
+        Instant march16 = Instant.parse("2025-03-16T00:00:00Z");
+        // The first attempt got as far as one measurement
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("days")))
+                .thenReturn(List.of(new Document("date", Date.from(march15)).append("source", "021.rs")));
+
+        writer.write("batch-1", Map.of(
+                new DayKey(march15, "021.rs"), Map.of("proProtestCount", 1L),
+                new DayKey(march16, "021.rs"), Map.of("proProtestCount", 2L)), new HashSet<>());
+
+        verify(mongoTemplate).insert(argThat((Collection<Document> measurements) -> measurements.size() == 1
+                && measurements.iterator().next().getDate("date").toInstant().equals(march16)), eq("days"));
+    }
+
+    @Test
+    void rollupThatAlreadyHasTheBatchIsNotCountedTwice() {
+        Map<DayKey, Map<String, Long>> counts = Map.of(
+                new DayKey(Instant.parse("2025-03-15T00:00:00Z"), "021.rs"), Map.of("proProtestCount", 1L));
+        when(weekly.execute()).thenThrow(duplicateKey());
+        when(mongoTemplate.exists(any(Query.class), eq("days_weekly"))).thenReturn(true);
+
+        writer.write("batch-1", counts, new HashSet<>());
+
+        ArgumentCaptor<Query> applied = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).exists(applied.capture(), eq("days_weekly"));
+        assertThat(applied.getValue().getQueryObject().get("batches")).isEqualTo("batch-1");
+        verify(monthly).execute();
+    }
+
+    @Test
+    void duplicateKeyOfAConcurrentInsertIsStillAFailure() {
+        Map<DayKey, Map<String, Long>> counts = Map.of(
+                new DayKey(Instant.parse("2025-03-15T00:00:00Z"), "021.rs"), Map.of("proProtestCount", 1L));
+        when(weekly.execute()).thenThrow(duplicateKey());
+        Set<String> written = new HashSet<>();
+
+        assertThatThrownBy(() -> writer.write("batch-1", counts, written)).isInstanceOf(BulkOperationException.class);
+        assertThat(written).containsExactly("days");
+    }
+
+    private BulkOperationException duplicateKey() {
+        BulkWriteError error = new BulkWriteError(11000, "E11000 duplicate key error", new BsonDocument(), 0);
+        return new BulkOperationException("E11000", new MongoBulkWriteException(
+                BulkWriteResult.unacknowledged(), List.of(error), null, new ServerAddress(), Set.of()));
+    }
+
+    // $inc of every upsert, keyed by source/start
+    private Map<String, Document> upserts(BulkOperations operations) {
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(operations, atLeastOnce()).upsert(queries.capture(), updates.capture());
+
+        Map<String, Document> upserts = new HashMap<>();
+        for (int i = 0; i < queries.getAllValues().size(); i++) {
+            Document query = queries.getAllValues().get(i).getQueryObject();
+            upserts.put(query.get("source") + "/" + query.get("start"),
+                    updates.getAllValues().get(i).getUpdateObject().get("$inc", Document.class));
+        }
+        return upserts;
+    }
+}
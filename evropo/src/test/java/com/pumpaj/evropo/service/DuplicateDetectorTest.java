@@ -0,0 +1,82 @@
+package com.pumpaj.evropo.service;
+
+import com.pumpaj.evropo.model.ArticleFingerprint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class DuplicateDetectorTest {
+
+    private static final String AGENCY_COPY = "Studenti Univerziteta u Novom Sadu blokirali su danas raskrsnicu kod "
+            + "Železničke stanice i zadržali saobraćaj petnaest minuta u znak sećanja na stradale. Skupu su se "
+            + "pridružili profesori, srednjoškolci i građani koji su nosili transparente i zviždaljke. Organizatori "
+            + "su naveli da će blokade trajati dok institucije ne ispune sve zahteve koje su studenti objavili "
+            + "pre nekoliko nedelja. Policija je obezbeđivala skup, a incidenata nije bilo. Saobraćaj je nakon "
+            + "odavanja pošte normalizovan, a studenti su se potom uputili ka Trgu slobode gde je održan javni čas "
+            + "o ustavnom pravu na mirno okupljanje. Najavljen je i novi skup za subotu u Beogradu.";
+
+    // Republished without diacritics and with the outlet's own byline
+    private static final String REPUBLISHED = "NOVI SAD (Beta) - " + AGENCY_COPY
+            .replace("ž", "z").replace("š", "s").replace("ć", "c");
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+    private DuplicateDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        detector = new DuplicateDetector();
+        ReflectionTestUtils.setField(detector, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(detector, "maxDistance", 3);
+        ReflectionTestUtils.setField(detector, "minTokens", 40);
+    }
+
+    @Test
+    void linksCopiesOnlyOnceTheOriginalIsAnalysed() throws Exception {
+        assertThat(detector.findCanonical("https://www.021.rs/blokada", "021", AGENCY_COPY)).isEmpty();
+        verify(mongoTemplate, never()).save(any(ArticleFingerprint.class));
+
+        assertThatThrownBy(() -> detector.findCanonical("https://informer.rs/blokada", "informer", REPUBLISHED))
+                .isInstanceOf(AnalysisPendingException.class);
+
+        detector.finished("https://www.021.rs/blokada", true);
+
+        assertThat(detector.findCanonical("https://informer.rs/blokada", "informer", REPUBLISHED))
+                .contains("https://www.021.rs/blokada");
+        // Known from now on, also after a restart
+        assertThat(detector.findCanonical("https://informer.rs/blokada", "informer", REPUBLISHED))
+                .contains("https://www.021.rs/blokada");
+        verify(mongoTemplate, times(2)).save(any(ArticleFingerprint.class));
+    }
+
+    @Test
+    void copyIsAnalysedItselfWhenTheOriginalIsNot() throws Exception {
+        assertThat(detector.findCanonical("https://www.021.rs/blokada", "021", AGENCY_COPY)).isEmpty();
+        detector.finished("https://www.021.rs/blokada", false);
+
+        assertThat(detector.findCanonical("https://informer.rs/blokada", "informer", REPUBLISHED)).isEmpty();
+        detector.finished("https://informer.rs/blokada", true);
+
+        // The copy is now the canonical article, and the original a copy of it
+        assertThat(detector.findCanonical("https://www.021.rs/blokada", "021", AGENCY_COPY))
+                .contains("https://informer.rs/blokada");
+    }
+
+    @Test
+    void retryOfTheSameArticleIsNotItsOwnCopy() throws Exception {
+        assertThat(detector.findCanonical("https://www.021.rs/blokada", "021", AGENCY_COPY)).isEmpty();
+        assertThat(detector.findCanonical("https://www.021.rs/blokada", "021", AGENCY_COPY)).isEmpty();
+    }
+
+    @Test
+    void shortTextsAreNeitherReservedNorLinked() throws Exception {
+        assertThat(detector.findCanonical("https://www.021.rs/kratko", "021", "Blokada kod stanice.")).isEmpty();
+        assertThat(detector.findCanonical("https://informer.rs/kratko", "informer", "Blokada kod stanice.")).isEmpty();
+    }
+}
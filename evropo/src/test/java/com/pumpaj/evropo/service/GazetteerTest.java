@@ -0,0 +1,80 @@
+package com.pumpaj.evropo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GazetteerTest {
+
+    private Gazetteer gazetteer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        gazetteer = new Gazetteer();
+        ReflectionTestUtils.setField(gazetteer, "location", new ClassPathResource("gazetteer/places.tsv"));
+        gazetteer.load();
+    }
+
+    @Test
+    void findsCaseFormsScriptsAndMissingDiacritics() {
+        assertThat(gazetteer.find("Beogradu")).get().extracting(Gazetteer.Place::getName).isEqualTo("Beograd");
+        assertThat(gazetteer.find("Београд")).get().extracting(Gazetteer.Place::getName).isEqualTo("Beograd");
+        assertThat(gazetteer.find("Nis")).get().extracting(Gazetteer.Place::getName).isEqualTo("Niš");
+        assertThat(gazetteer.find("u Novom Sadu")).get().extracting(Gazetteer.Place::getName).isEqualTo("Novi Sad");
+    }
+
+    @Test
+    void findsPlacesInsideLongerNamesAndThroughTypos() {
+        assertThat(gazetteer.find("ETF Beograd")).get().extracting(Gazetteer.Place::getName).isEqualTo("Beograd");
+        // Stemmed to "kragujevc", one edit away from the "kragujevac" key
+        assertThat(gazetteer.find("Kragujevcu")).get().extracting(Gazetteer.Place::getName).isEqualTo("Kragujevac");
+        assertThat(gazetteer.find("Kragujevca")).get().extracting(Gazetteer.Place::getName).isEqualTo("Kragujevac");
+    }
+
+    @Test
+    void unknownPlacesAreEmpty() {
+        assertThat(gazetteer.find("Atlantida")).isEmpty();
+        assertThat(gazetteer.find("")).isEmpty();
+    }
+
+    @Test
+    void readsGeoNamesDumpsAndPrefersBiggerPlaces() throws Exception {
+        String dump = String.join("\n",
+                geoNames("Lazarevac", "Lazarevac", "Лазаревац", "44.38534", "20.2557", "P", "24000"),
+                geoNames("Lazarevac", "Lazarevac", "", "43.1", "21.9", "P", "300"),
+                geoNames("Rudnik", "Rudnik", "", "44.1", "20.5", "T", "0"));
+        gazetteer = reload(dump);
+
+        assertThat(gazetteer.find("Лазаревцу")).get().extracting(Gazetteer.Place::getLatitude).isEqualTo(44.38534);
+        // Mountains and other features that are not populated places are skipped
+        assertThat(gazetteer.find("Rudnik")).isEmpty();
+    }
+
+    @Test
+    void distanceCountsTranspositionsOnceAndStopsAtTheLimit() {
+        assertThat(Gazetteer.distance("beograd", "beorgad", 2)).isEqualTo(1);
+        assertThat(Gazetteer.distance("beograd", "beograd", 0)).isZero();
+        assertThat(Gazetteer.distance("beograd", "novi sad", 2)).isEqualTo(Integer.MAX_VALUE);
+        assertThat(Gazetteer.stem("novom")).isEqualTo("nov");
+        assertThat(Gazetteer.stem("nis")).isEqualTo("nis");
+    }
+
+    private static Gazetteer reload(String dump) throws Exception {
+        Gazetteer gazetteer = new Gazetteer();
+        ReflectionTestUtils.setField(gazetteer, "location", new ByteArrayResource(dump.getBytes(StandardCharsets.UTF_8)));
+        gazetteer.load();
+        return gazetteer;
+    }
+
+    private static String geoNames(String name, String asciiName, String alternates, String lat, String lng,
+                                   String featureClass, String population) {
+        return String.join("\t", "1", name, asciiName, alternates, lat, lng, featureClass, "PPL", "RS", "",
+                "", "", "", "", population, "", "150", "Europe/Belgrade", "2024-01-01");
+    }
+}
@@ -0,0 +1,102 @@
+package com.pumpaj.evropo.service;
+
+import com.pumpaj.evropo.model.PipelineJob;
+import com.pumpaj.evropo.model.PipelineResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class JobServiceTest {
+
+    private final NewsPipelineService pipelineService = mock(NewsPipelineService.class);
+    private final NewsSource source = mock(NewsSource.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private JobService jobService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(source.getId()).thenReturn("021");
+        when(pipelineService.run(eq(source), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new PipelineResult("021", 3, 1, 0, 0, List.of());
+        });
+
+        jobService = new JobService();
+        ReflectionTestUtils.setField(jobService, "pipelineService", pipelineService);
+        ReflectionTestUtils.setField(jobService, "retentionMinutes", 60L);
+        ReflectionTestUtils.setField(jobService, "maxRetained", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        jobService.shutdown();
+    }
+
+    @Test
+    void concurrentTriggersJoinTheRunInFlight() throws Exception {
+        PipelineJob first = jobService.trigger(source, "api");
+        PipelineJob second = jobService.trigger(source, "scheduler");
+
+        assertThat(second).isSameAs(first);
+
+        release.countDown();
+        assertThat(first.getCompletion().get(5, TimeUnit.SECONDS).getNewArticles()).isEqualTo(3);
+        assertThat(first.getStatus()).isEqualTo(PipelineJob.Status.SUCCEEDED);
+        verify(pipelineService, times(1)).run(eq(source), any());
+    }
+
+    @Test
+    void startsNewRunOnceThePreviousOneFinished() throws Exception {
+        release.countDown();
+        PipelineJob first = jobService.trigger(source, "api");
+        first.getCompletion().get(5, TimeUnit.SECONDS);
+
+        PipelineJob second = jobService.trigger(source, "api");
+
+        assertThat(second.getId()).isNotEqualTo(first.getId());
+        assertThat(jobService.getJob(first.getId())).contains(first);
+    }
+
+    @Test
+    void reportsFailedRuns() throws Exception {
+        doThrow(new IllegalStateException("listing unavailable")).when(pipelineService).run(eq(source), any());
+
+        PipelineJob job = jobService.trigger(source, "api");
+
+        assertThatThrownBy(() -> job.getCompletion().get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        assertThat(job.getStatus()).isEqualTo(PipelineJob.Status.FAILED);
+        assertThat(job.getError()).isEqualTo("listing unavailable");
+    }
+
+    @Test
+    void keepsOnlyTheNewestFinishedJobs() throws Exception {
+        release.countDown();
+        PipelineJob first = runToCompletion();
+        runToCompletion();
+        runToCompletion();
+
+        assertThat(jobService.getJobs()).hasSize(2);
+        assertThat(jobService.getJob(first.getId())).isEmpty();
+    }
+
+    private PipelineJob runToCompletion() throws Exception {
+        PipelineJob job = jobService.trigger(source, "api");
+        job.getCompletion().get(5, TimeUnit.SECONDS);
+        // Keeps finish times of consecutive jobs apart
+        Thread.sleep(5);
+        return job;
+    }
+}
@@ -0,0 +1,53 @@
+package com.pumpaj.evropo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeywordMatcherTest {
+
+    @Test
+    void findsOverlappingKeywords() {
+        KeywordMatcher matcher = new KeywordMatcher(List.of("blokada", "studentska blokada", "protest", "protest studenata"));
+
+        // Keywords ending at the same character come out together, longest first
+        assertThat(matcher.findMatches("Studentska blokada prerasla u protest studenata"))
+                .containsExactly("studentska blokada", "blokada", "protest", "protest studenata");
+    }
+
+    @Test
+    void matchesWholeWordsOnly() {
+        KeywordMatcher matcher = new KeywordMatcher(List.of("protest", "rat"));
+
+        // Like the old \b regex, neither "protestima" nor the "rat" in "grad" or "ratni" counts
+        assertThat(matcher.findMatches("Protestima u gradu prisustvovao ratni veteran")).isEmpty();
+        assertThat(matcher.findMatches("Rat, protest! (protest)")).containsExactly("rat", "protest");
+        assertThat(matcher.findMatches("protest-šetnja")).containsExactly("protest");
+    }
+
+    @Test
+    void ignoresCaseAndDiacritics() {
+        KeywordMatcher matcher = new KeywordMatcher(List.of("Šetnja", "đaci"));
+
+        assertThat(matcher.findMatches("SETNJA do Trga slobode")).containsExactly("setnja");
+        assertThat(matcher.findMatches("Djaci se pridružili")).containsExactly("djaci");
+    }
+
+    @Test
+    void matchesCyrillicTitlesAgainstLatinKeywords() {
+        KeywordMatcher matcher = new KeywordMatcher(List.of("blokada", "studenti"));
+
+        assertThat(matcher.findMatches("Студенти најавили нову блокаду")).containsExactly("studenti");
+        assertThat(matcher.findMatches("БЛОКАДА факултета")).containsExactly("blokada");
+    }
+
+    @Test
+    void blankKeywordsAndTitlesMatchNothing() {
+        KeywordMatcher matcher = new KeywordMatcher(List.of("", "  ", "protest"));
+
+        assertThat(matcher.findMatches("")).isEmpty();
+        assertThat(matcher.findMatches("   ")).isEmpty();
+    }
+}
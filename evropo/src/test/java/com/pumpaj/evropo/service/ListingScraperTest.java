@@ -0,0 +1,167 @@
+package com.pumpaj.evropo.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ListingScraperTest {
+
+    private static final String ETAG = "\"listing-v1\"";
+
+    private HttpServer server;
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicInteger notModifiedResponses = new AtomicInteger();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/Najnovije/3", exchange -> serveFixture(exchange, "fixtures/021_najnovije.html", false));
+        server.createContext("/najnovije-vesti", exchange -> serveFixture(exchange, "fixtures/informer_najnovije.html", false));
+        server.createContext("/gzip", exchange -> serveFixture(exchange, "fixtures/021_najnovije.html", true));
+        server.createContext("/broken", exchange -> {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void extractsTitlesAndLinksUsingDeclaredSelectors() throws Exception {
+        ListingScraper scraper = new ListingScraper(properties());
+
+        List<ListingScraper.ScrapedLink> links = scraper.scrape("021");
+
+        assertThat(links).extracting(ListingScraper.ScrapedLink::getTitle).containsExactly(
+                "Studenti blokirali raskrsnicu kod Železničke stanice",
+                "Profesori podržali javni čas na Trgu slobode",
+                "Vremenska prognoza za vikend");
+        assertThat(links.get(0).getLink())
+                .isEqualTo("https://www.021.rs/story/Novi-Sad/Vesti/412345/Studenti-blokirali-raskrsnicu-kod-Zeleznicke-stanice.html");
+        assertThat(links.get(1).getLink())
+                .isEqualTo(baseUrl() + "/story/Info/Srbija/412346/Profesori-podrzali-javni-cas-na-Trgu-slobode.html");
+    }
+
+    @Test
+    void resolvesRelativeLinksAndSkipsExcludedPaths() throws Exception {
+        ListingScraper scraper = new ListingScraper(properties());
+
+        List<ListingScraper.ScrapedLink> links = scraper.scrape("informer");
+
+        assertThat(links).extracting(ListingScraper.ScrapedLink::getLink).containsExactly(
+                baseUrl() + "/vesti/politika/998811/blokaderi-ponovo-zaustavili-saobracaj",
+                baseUrl() + "/vesti/drustvo/998812/plenumasi-najavili-novi-skup");
+    }
+
+    @Test
+    void shortCircuitsWhenListingIsNotModified() throws Exception {
+        ListingScraper scraper = new ListingScraper(properties());
+
+        assertThat(scraper.scrape("021")).hasSize(3);
+        assertThat(scraper.scrape("021")).isEmpty();
+
+        assertThat(fullResponses.get()).isEqualTo(1);
+        assertThat(notModifiedResponses.get()).isEqualTo(1);
+    }
+
+    @Test
+    void decodesGzipEncodedListings() throws Exception {
+        ScraperProperties properties = properties();
+        properties.getSites().get("021").setUrl(baseUrl() + "/gzip");
+        ListingScraper scraper = new ListingScraper(properties);
+
+        assertThat(scraper.scrape("021")).hasSize(3);
+    }
+
+    @Test
+    void failsOnUnexpectedStatus() {
+        ScraperProperties properties = properties();
+        properties.getSites().get("021").setUrl(baseUrl() + "/broken");
+        ListingScraper scraper = new ListingScraper(properties);
+
+        assertThatThrownBy(() -> scraper.scrape("021")).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void rejectsUnknownSites() {
+        ListingScraper scraper = new ListingScraper(properties());
+
+        assertThatThrownBy(() -> scraper.scrape("n1")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private ScraperProperties properties() {
+        ScraperProperties properties = new ScraperProperties();
+        properties.setTimeoutSeconds(5);
+
+        ScraperProperties.Site site021 = new ScraperProperties.Site();
+        site021.setUrl(baseUrl() + "/Najnovije/3");
+        site021.setItemSelector("article");
+        site021.setTitleSelectors(List.of("h3.articleTitle span", "h3.articleTitle"));
+        site021.setLinkSelector("h3.articleTitle a[href]");
+        site021.setExcludedPathPrefixes(List.of("/oglasi"));
+        properties.getSites().put("021", site021);
+
+        ScraperProperties.Site siteInformer = new ScraperProperties.Site();
+        siteInformer.setUrl(baseUrl() + "/najnovije-vesti?page=13");
+        siteInformer.setItemSelector("article.news-item");
+        siteInformer.setTitleSelectors(List.of("h2.news-item-title a"));
+        siteInformer.setLinkSelector("h2.news-item-title a[href]");
+        siteInformer.setExcludedPathPrefixes(List.of("/oglasi"));
+        properties.getSites().put("informer", siteInformer);
+
+        return properties;
+    }
+
+    private String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void serveFixture(HttpExchange exchange, String fixture, boolean gzip) throws IOException {
+        if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            notModifiedResponses.incrementAndGet();
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] body;
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream(fixture)) {
+            body = is.readAllBytes();
+        }
+
+        if (gzip) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzipStream = new GZIPOutputStream(compressed)) {
+                gzipStream.write(body);
+            }
+            body = compressed.toByteArray();
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+        }
+
+        fullResponses.incrementAndGet();
+        exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+        exchange.getResponseHeaders().add("ETag", ETAG);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.pumpaj.evropo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Drives the guard with calls that fail with queued exceptions, the ones {@link PythonWorkerPool}
+ * throws for throttled and unavailable answers. {@link #classifiedWorkerErrorsDriveTheCircuit}
+ * gets them from a real worker pool instead.
+ */
+class LlmGuardTest {
+
+    private final Queue<IOException> failures = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger hits = new AtomicInteger();
+
+    @Test
+    void opensAfterRepeatedFailuresAndRejectsWithoutCallingTheBackend() throws Exception {
+        LlmGuard guard = new LlmGuard(6000, 1_000_000, 3, 60_000, 4);
+        enqueue(unavailable(), unavailable(), unavailable());
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> guard.call(100, this::llm)).isInstanceOf(LlmUnavailableException.class);
+        }
+
+        assertThat(guard.getState()).isEqualTo(LlmGuard.CircuitState.OPEN);
+        assertThat(guard.isOpen()).isTrue();
+        assertThatThrownBy(() -> guard.call(100, this::llm))
+                .isInstanceOf(LlmUnavailableException.class)
+                .hasMessageContaining("circuit is open");
+        assertThat(hits).hasValue(3);
+    }
+
+    @Test
+    void probeAfterCoolDownClosesTheCircuit() throws Exception {
+        LlmGuard guard = new LlmGuard(6000, 1_000_000, 1, 200, 4);
+        enqueue(unavailable());
+        assertThatThrownBy(() -> guard.call(100, this::llm)).isInstanceOf(LlmUnavailableException.class);
+        assertThat(guard.getState()).isEqualTo(LlmGuard.CircuitState.OPEN);
+
+        Thread.sleep(300);
+        assertThat(guard.getState()).isEqualTo(LlmGuard.CircuitState.HALF_OPEN);
+
+        assertThat(guard.call(100, this::llm)).isEqualTo("analysis");
+        assertThat(guard.getState()).isEqualTo(LlmGuard.CircuitState.CLOSED);
+    }
+
+    @Test
+    void failedProbeOpensTheCircuitAgain() throws Exception {
+        LlmGuard guard = new LlmGuard(6000, 1_000_000, 1, 200, 4);
+        enqueue(unavailable(), unavailable());
+        assertThatThrownBy(() -> guard.call(100, this::llm)).isInstanceOf(LlmUnavailableException.class);
+
+        Thread.sleep(300);
+        assertThatThrownBy(() -> guard.call(100, this::llm)).isInstanceOf(LlmUnavailableException.class);
+
+        assertThat(guard.getState()).isEqualTo(LlmGuard.CircuitState.OPEN);
+        assertThat(hits).hasValue(2);
+    }
+
+    @Test
+    void rateLimitedCallsHalveTheConcurrencyLimit() throws Exception {
+        LlmGuard guard = new LlmGuard(6000, 1_000_000, 10, 60_000, 8);
+        enqueue(rateLimited(), rateLimited());
+
+        assertThatThrownBy(() -> guard.call(100, this::llm)).isInstanceOf(LlmUnavailableException.class);
+        assertThatThrownBy(() -> guard.call(100, this::llm)).isInstanceOf(LlmUnavailableException.class);
+        assertThat(guard.getConcurrencyLimit()).isEqualTo(2);
+
+        for (int i = 0; i < 10; i++) {
+            guard.call(100, this::llm);
+        }
+        assertThat(guard.getConcurrencyLimit()).isGreaterThan(2);
+        assertThat(guard.getState()).isEqualTo(LlmGuard.CircuitState.CLOSED);
+    }
+
+    @Test
+    void timedOutAndCrashedWorkersCountAsFailures() {
+        LlmGuard guard = new LlmGuard(6000, 1_000_000, 2, 60_000, 4);
+
+        assertThatThrownBy(() -> guard.call(100, () -> {
+            throw new PythonWorkerPool.WorkerTimeoutException("Python worker did not answer within 1000 ms");
+        })).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> guard.call(100, () -> {
+            throw new PythonWorkerPool.WorkerCrashedException("Python worker exited with code 1");
+        })).isInstanceOf(IOException.class);
+
+        assertThat(guard.getState()).isEqualTo(LlmGuard.CircuitState.OPEN);
+    }
+
+    @Test
+    void onlyASuccessfulProbeClosesTheCircuit() throws Exception {
+        LlmGuard guard = new LlmGuard(6000, 1_000_000, 1, 200, 4);
+        enqueue(unavailable());
+        assertThatThrownBy(() -> guard.call(100, this::llm)).isInstanceOf(LlmUnavailableException.class);
+        Thread.sleep(300);
+
+        // An error the worker answered with says nothing about the backend
+        assertThatThrownBy(() -> guard.call(100, () -> {
+            throw new IOException("Python worker error: Analysis failed");
+        })).isInstanceOf(IOException.class);
+        assertThat(guard.getState()).isEqualTo(LlmGuard.CircuitState.HALF_OPEN);
+
+        assertThatThrownBy(() -> guard.call(100, () -> {
+            throw new PythonWorkerPool.WorkerTimeoutException("Python worker did not answer within 1000 ms");
+        })).isInstanceOf(IOException.class);
+        assertThat(guard.getState()).isEqualTo(LlmGuard.CircuitState.OPEN);
+    }
+
+    @Test
+    void callStartedBeforeTheCircuitOpenedDoesNotDecideTheProbe() throws Exception {
+        LlmGuard guard = new LlmGuard(6000, 1_000_000, 1, 200, 4);
+        CountDownLatch staleRunning = new CountDownLatch(1);
+        CountDownLatch finishStale = new CountDownLatch(1);
+        CompletableFuture<String> stale = CompletableFuture.supplyAsync(() -> callQuietly(guard, () -> {
+            staleRunning.countDown();
+            finishStale.await();
+            return "stale";
+        }));
+        assertThat(staleRunning.await(5, TimeUnit.SECONDS)).isTrue();
+
+        enqueue(unavailable());
+        assertThatThrownBy(() -> guard.call(100, this::llm)).isInstanceOf(LlmUnavailableException.class);
+        Thread.sleep(300);
+
+        CountDownLatch probeRunning = new CountDownLatch(1);
+        CountDownLatch finishProbe = new CountDownLatch(1);
+        CompletableFuture<String> probe = CompletableFuture.supplyAsync(() -> callQuietly(guard, () -> {
+            probeRunning.countDown();
+            finishProbe.await();
+            return "probe";
+        }));
+        assertThat(probeRunning.await(5, TimeUnit.SECONDS)).isTrue();
+
+        finishStale.countDown();
+        assertThat(stale.get(5, TimeUnit.SECONDS)).isEqualTo("stale");
+        assertThat(guard.getState()).isEqualTo(LlmGuard.CircuitState.HALF_OPEN);
+        // The probe is still running, so nothing else gets in
+        assertThatThrownBy(() -> guard.call(100, () -> "second probe"))
+                .isInstanceOf(LlmUnavailableException.class)
+                .hasMessageContaining("circuit is open");
+
+        finishProbe.countDown();
+        assertThat(probe.get(5, TimeUnit.SECONDS)).isEqualTo("probe");
+        assertThat(guard.getState()).isEqualTo(LlmGuard.CircuitState.CLOSED);
+    }
+
+    @Test
+    void classifiedWorkerErrorsDriveTheCircuit() throws Exception {
+        LlmGuard guard = new LlmGuard(6000, 1_000_000, 3, 60_000, 8);
+        PythonWorkerPool workerPool = stubWorkerPool();
+        try {
+            assertThatThrownBy(() -> guard.call(100, () -> workerPool.execute(analyze("api error 429"))))
+                    .isInstanceOf(LlmUnavailableException.class);
+            assertThat(guard.getConcurrencyLimit()).isEqualTo(4);
+
+            assertThatThrownBy(() -> guard.call(100, () -> workerPool.execute(analyze("api error 503"))))
+                    .isInstanceOf(LlmUnavailableException.class);
+            assertThatThrownBy(() -> guard.call(100, () -> workerPool.execute(analyze("crash"))))
+                    .isInstanceOf(IOException.class);
+
+            assertThat(guard.getState()).isEqualTo(LlmGuard.CircuitState.OPEN);
+        } finally {
+            workerPool.shutdown();
+        }
+    }
+
+    @Test
+    void waitsForTokenBudget() throws Exception {
+        // 6000 tokens per minute refill at 100 per second
+        LlmGuard guard = new LlmGuard(6000, 6000, 5, 60_000, 4);
+        guard.call(6000, this::llm);
+
+        long start = System.nanoTime();
+        guard.call(100, this::llm);
+        long waitedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(waitedMillis).isBetween(700L, 3000L);
+    }
+
+    private static <T> T callQuietly(LlmGuard guard, LlmGuard.LlmCall<T> llmCall) {
+        try {
+            return guard.call(100, llmCall);
+        } catch (IOException | InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Runs scripts/stub_worker.py, which classifies API errors with the real gemini_text_analysis.py
+    private PythonWorkerPool stubWorkerPool() {
+        PythonWorkerPool workerPool = new PythonWorkerPool(1);
+        ReflectionTestUtils.setField(workerPool, "pythonPath", "python3");
+        ReflectionTestUtils.setField(workerPool, "workerScriptPath", "scripts/stub_worker.py");
+        ReflectionTestUtils.setField(workerPool, "analyzerScriptPath", "scripts/gemini_text_analysis.py");
+        ReflectionTestUtils.setField(workerPool, "analyzeTimeoutMillis", 5000L);
+        return workerPool;
+    }
+
+    private ObjectNode analyze(String text) {
+        ObjectNode request = new ObjectMapper().createObjectNode();
+        request.put("type", "analyze_text");
+        request.put("text", text);
+        return request;
+    }
+
+    private void enqueue(IOException... exceptions) {
+        failures.addAll(List.of(exceptions));
+    }
+
+    private static LlmUnavailableException rateLimited() {
+        return new LlmUnavailableException("LLM rate limited: 429 Resource has been exhausted", true);
+    }
+
+    private static LlmUnavailableException unavailable() {
+        return new LlmUnavailableException("LLM unavailable: 503 Service unavailable", false);
+    }
+
+    // One LLM call, failing with the next queued exception if there is one
+    private String llm() throws IOException {
+        hits.incrementAndGet();
+        IOException failure = failures.poll();
+        if (failure != null) {
+            throw failure;
+        }
+        return "analysis";
+    }
+}
@@ -0,0 +1,58 @@
+package com.pumpaj.evropo.service;
+
+import com.pumpaj.evropo.model.Protest.Organizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProtestKeyResolverTest {
+
+    private final ProtestKeyResolver resolver = new ProtestKeyResolver();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Gazetteer gazetteer = new Gazetteer();
+        ReflectionTestUtils.setField(gazetteer, "location", new ClassPathResource("gazetteer/places.tsv"));
+        gazetteer.load();
+        ReflectionTestUtils.setField(resolver, "gazetteer", gazetteer);
+    }
+
+    @Test
+    void spellingsOfOneProtestShareAKey() {
+        ProtestKeyResolver.ProtestKey key = resolver.resolve("s&o", "Beograd", "2025-03-15").orElseThrow();
+
+        assertThat(resolver.resolve("S&O", "Belgrade", "15.3.2025.")).contains(key);
+        assertThat(resolver.resolve("studenti", "u Beogradu", "15.03.2025")).contains(key);
+        assertThat(key.getLocation()).isEqualTo("Beograd");
+        assertThat(key.getDate()).isEqualTo(LocalDate.of(2025, 3, 15));
+    }
+
+    @Test
+    void placesMissingFromTheGazetteerAreKeyedOnTheirFoldedName() {
+        ProtestKeyResolver.ProtestKey key = resolver.resolve("gov", "Atlantida", "2025-03-15").orElseThrow();
+
+        assertThat(key.getLocation()).isEqualTo("Atlantida");
+        assertThat(resolver.resolve("gov", "ATLANTIDA", "2025-03-15")).contains(key);
+    }
+
+    @Test
+    void mapsOrganizerDescriptionsToTheEnum() {
+        assertThat(ProtestKeyResolver.organizer("gov")).contains(Organizer.GOVERNMENT);
+        assertThat(ProtestKeyResolver.organizer("Vlada Srbije i SNS")).contains(Organizer.GOVERNMENT);
+        assertThat(ProtestKeyResolver.organizer("Studenti koji žele da uče")).contains(Organizer.GOVERNMENT);
+        assertThat(ProtestKeyResolver.organizer("Студенти и грађани")).contains(Organizer.STUDENTS_AND_OTHERS);
+        assertThat(ProtestKeyResolver.organizer("unknown")).isEmpty();
+        assertThat(ProtestKeyResolver.organizer("studenti protiv vlade")).isEmpty();
+    }
+
+    @Test
+    void unreadableDatesHaveNoKey() {
+        assertThat(resolver.resolve("s&o", "Beograd", "sredina marta")).isEmpty();
+        assertThat(resolver.resolve("s&o", "", "2025-03-15")).isEmpty();
+    }
+}
@@ -0,0 +1,104 @@
+package com.pumpaj.evropo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the pool against scripts/stub_worker.py from the test resources, which classifies
+ * API errors with the real gemini_text_analysis.py.
+ */
+class PythonWorkerPoolTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private PythonWorkerPool workerPool;
+
+    @BeforeEach
+    void setUp() {
+        workerPool = new PythonWorkerPool(1);
+        ReflectionTestUtils.setField(workerPool, "pythonPath", "python3");
+        ReflectionTestUtils.setField(workerPool, "workerScriptPath", "scripts/stub_worker.py");
+        ReflectionTestUtils.setField(workerPool, "analyzerScriptPath", "scripts/gemini_text_analysis.py");
+        ReflectionTestUtils.setField(workerPool, "pingTimeoutMillis", 5000L);
+        ReflectionTestUtils.setField(workerPool, "analyzeTimeoutMillis", 1000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        workerPool.shutdown();
+    }
+
+    @Test
+    void readsResponsesFromTheProtocolChannel() throws Exception {
+        assertThat(workerPool.execute(request("analyze_text", "first")).path("echo").asText()).isEqualTo("first");
+        assertThat(workerPool.execute(request("analyze_text", "second")).path("echo").asText()).isEqualTo("second");
+    }
+
+    @Test
+    void chattyStderrDoesNotBlockTheWorker() throws Exception {
+        assertThat(workerPool.execute(request("analyze_text", "noisy")).path("echo").asText()).isEqualTo("noisy");
+    }
+
+    @Test
+    void killsTheWorkerAndItsChildrenAfterTheDeadline(@TempDir Path tempDir) throws Exception {
+        Path pidFile = tempDir.resolve("child.pid");
+        ObjectNode hang = request("analyze_text", "hang");
+        hang.put("pid_file", pidFile.toString());
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> workerPool.execute(hang))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("within 1000 ms");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(10));
+
+        Optional<ProcessHandle> child = ProcessHandle.of(Long.parseLong(Files.readString(pidFile).trim()));
+        if (child.isPresent()) {
+            child.get().onExit().get(5, TimeUnit.SECONDS);
+        }
+
+        // The next request gets a fresh worker
+        assertThat(workerPool.execute(request("analyze_text", "after")).path("echo").asText()).isEqualTo("after");
+    }
+
+    @Test
+    void mapsTheErrorTypeOfClassifiedApiErrors() {
+        assertThatThrownBy(() -> workerPool.execute(request("analyze_text", "api error 429")))
+                .isInstanceOfSatisfying(LlmUnavailableException.class, e -> assertThat(e.isRateLimited()).isTrue());
+        assertThatThrownBy(() -> workerPool.execute(request("analyze_text", "api error 503")))
+                .isInstanceOfSatisfying(LlmUnavailableException.class, e -> assertThat(e.isRateLimited()).isFalse());
+        // A bad request is the article's problem, not the backend's
+        assertThatThrownBy(() -> workerPool.execute(request("analyze_text", "api error 400")))
+                .isInstanceOf(IOException.class)
+                .isNotInstanceOf(LlmUnavailableException.class)
+                .hasMessageContaining("400 from the Gemini API");
+    }
+
+    @Test
+    void workerThatKeepsCrashingFailsTheRequest() throws Exception {
+        assertThatThrownBy(() -> workerPool.execute(request("analyze_text", "crash")))
+                .isInstanceOf(PythonWorkerPool.WorkerCrashedException.class);
+
+        assertThat(workerPool.execute(request("analyze_text", "after")).path("echo").asText()).isEqualTo("after");
+    }
+
+    private ObjectNode request(String type, String text) {
+        ObjectNode request = objectMapper.createObjectNode();
+        request.put("type", type);
+        request.put("text", text);
+        return request;
+    }
+}
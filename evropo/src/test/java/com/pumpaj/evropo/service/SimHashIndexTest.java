@@ -0,0 +1,65 @@
+package com.pumpaj.evropo.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SimHashIndexTest {
+
+    private static final String AGENCY_COPY = "Studenti Univerziteta u Novom Sadu blokirali su danas raskrsnicu kod "
+            + "Železničke stanice i zadržali saobraćaj petnaest minuta u znak sećanja na stradale. Skupu su se "
+            + "pridružili profesori, srednjoškolci i građani koji su nosili transparente i zviždaljke. Organizatori "
+            + "su naveli da će blokade trajati dok institucije ne ispune sve zahteve koje su studenti objavili "
+            + "pre nekoliko nedelja. Policija je obezbeđivala skup, a incidenata nije bilo. Saobraćaj je nakon "
+            + "odavanja pošte normalizovan, a studenti su se potom uputili ka Trgu slobode gde je održan javni čas "
+            + "o ustavnom pravu na mirno okupljanje. Najavljen je i novi skup za subotu u Beogradu.";
+
+    private static final String OTHER_ARTICLE = "Vremenska prognoza za vikend najavljuje sunčano i toplo vreme u "
+            + "celoj Srbiji, sa temperaturom do dvadeset osam stepeni. Meteorolozi upozoravaju da bi u nedelju "
+            + "popodne na severu zemlje moglo doći do kratkotrajnih pljuskova sa grmljavinom, posebno u Vojvodini. "
+            + "Početkom naredne nedelje očekuje se osveženje i pad temperature za nekoliko stepeni, uz umeren "
+            + "severozapadni vetar. Građanima se savetuje da izbegavaju boravak na suncu u periodu od jedanaest "
+            + "do sedamnaest časova i da piju dovoljno tečnosti.";
+
+    @Test
+    void lightlyEditedCopyStaysWithinMatchingDistance() {
+        long original = SimHash.fingerprint(SimHash.tokenize(AGENCY_COPY));
+        // Republished without diacritics and with the outlet's own byline
+        long edited = SimHash.fingerprint(SimHash.tokenize("NOVI SAD (Beta) - " + AGENCY_COPY
+                .replace("ž", "z").replace("š", "s").replace("ć", "c")));
+
+        assertThat(SimHash.distance(original, edited)).isLessThanOrEqualTo(SimHashIndex.MAX_GUARANTEED_DISTANCE);
+    }
+
+    @Test
+    void differentArticlesAreFarApart() {
+        long first = SimHash.fingerprint(SimHash.tokenize(AGENCY_COPY));
+        long second = SimHash.fingerprint(SimHash.tokenize(OTHER_ARTICLE));
+
+        assertThat(SimHash.distance(first, second)).isGreaterThan(10);
+    }
+
+    @Test
+    void findsNearestEntryThroughAnyBand() {
+        SimHashIndex index = new SimHashIndex();
+        long fingerprint = 0x0123_4567_89ab_cdefL;
+        index.add(new SimHashIndex.Entry("https://www.021.rs/a", fingerprint, "https://www.021.rs/a"));
+
+        // Three flipped bits in three different bands, the fourth band still matches
+        long near = fingerprint ^ (1L << 3) ^ (1L << 20) ^ (1L << 40);
+
+        assertThat(index.findNearest(near, 3, "https://informer.rs/b"))
+                .get()
+                .extracting(SimHashIndex.Entry::getCanonicalUrl)
+                .isEqualTo("https://www.021.rs/a");
+        assertThat(index.findNearest(near, 2, "https://informer.rs/b")).isEmpty();
+    }
+
+    @Test
+    void ignoresTheArticleItself() {
+        SimHashIndex index = new SimHashIndex();
+        index.add(new SimHashIndex.Entry("https://www.021.rs/a", 42L, "https://www.021.rs/a"));
+
+        assertThat(index.findNearest(42L, 3, "https://www.021.rs/a")).isEmpty();
+    }
+}
@@ -0,0 +1,86 @@
+import contextlib
+import importlib
+import json
+import subprocess
+import sys
+import time
+import types
+
+# Stands in for python_worker.py in tests: same protocol, no Gemini.
+#   analyze_text "hang"  starts a child process, then never answers
+#   analyze_text "noisy" writes a lot to stderr before answering
+#   analyze_text "api error <code>" fails like a Gemini API call answered with that HTTP status
+#   analyze_text "crash" exits without answering
+
+
+class ApiError(Exception):
+    """
+    Like the google.api_core exceptions, carries the HTTP status as `code`.
+    """
+
+    def __init__(self, code):
+        super().__init__(f"{code} from the Gemini API")
+        self.code = code
+
+
+def import_analyzer():
+    """
+    Imports gemini_text_analysis for its error classification. Missing dependencies are
+    stubbed, the stub never scrapes or calls Gemini. Its prints go to stderr, like in python_worker.py.
+    """
+    for name in ('google', 'google.generativeai', 'requests', 'bs4'):
+        try:
+            importlib.import_module(name)
+        except ImportError:
+            sys.modules[name] = types.ModuleType(name)
+
+    genai = sys.modules['google.generativeai']
+    setattr(sys.modules['google'], 'generativeai', genai)
+    if not hasattr(genai, 'configure'):
+        genai.configure = lambda **kwargs: None
+        genai.GenerativeModel = lambda name: None
+    if not hasattr(sys.modules['bs4'], 'BeautifulSoup'):
+        sys.modules['bs4'].BeautifulSoup = None
+
+    with contextlib.redirect_stdout(sys.stderr):
+        return importlib.import_module('gemini_text_analysis')
+
+
+def main():
+    analyzer = import_analyzer()
+
+    for line in sys.stdin:
+        request = json.loads(line)
+        text = request.get('text')
+
+        if request.get('type') == 'analyze_text' and text == 'hang':
+            child = subprocess.Popen(['sleep', '300'])
+            with open(request['pid_file'], 'w') as pid_file:
+                pid_file.write(str(child.pid))
+            time.sleep(300)
+
+        if request.get('type') == 'analyze_text' and text == 'crash':
+            sys.exit(3)
+
+        if text == 'noisy':
+            for i in range(5000):
+                print(f"log line {i} from the analyzer", file=sys.stderr)
+
+        try:
+            if request.get('type') == 'analyze_text' and text.startswith('api error '):
+                error = ApiError(int(text[len('api error '):]))
+                # Raised the way analyze_text_sentiment does
+                raise analyzer.classify_api_error(error) or error
+
+            result = 'pong' if request.get('type') == 'ping' else {'echo': text}
+            response = {'id': request.get('id'), 'ok': True, 'result': result}
+        except Exception as e:
+            # Answered the way python_worker.py does
+            response = {'id': request.get('id'), 'ok': False, 'error': str(e),
+                        'error_type': getattr(e, 'error_type', 'error')}
+        sys.stdout.write(json.dumps(response) + "\n")
+        sys.stdout.flush()
+
+
+if __name__ == "__main__":
+    main()